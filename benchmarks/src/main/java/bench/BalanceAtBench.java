@@ -0,0 +1,118 @@
+package bench;
+
+import models.Transaction;
+import services.Bank;
+import services.TransactionQuery;
+import utils.SeedData;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Point-in-time balances from the checkpointed index against replaying history: one
+ * account at a random past instant (against replaying that account's whole history), and
+ * every account at once (against one pass over the whole ledger). Every answer is
+ * compared with its replay, and a balance as of now with the live one; exits non-zero on
+ * any difference.
+ *
+ * Usage: java bench.BalanceAtBench [accounts] [transactionsPerAccount] [queries]
+ */
+public class BalanceAtBench {
+    public static void main(String[] args) throws Exception {
+        int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        int perAccount = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+        int queries = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+
+        Bank bank = new Bank();
+        List<String> ids = SeedData.seed(bank, accounts, 1, perAccount, 42);
+        LocalDateTime first = null;
+        LocalDateTime last = null;
+        for (Transaction t : (Iterable<Transaction>) bank.streamTransactions(TransactionQuery.all())::iterator) {
+            if (first == null || t.getTimestamp().isBefore(first)) first = t.getTimestamp();
+            if (last == null || t.getTimestamp().isAfter(last)) last = t.getTimestamp();
+        }
+        long spanNanos = Duration.between(first, last).toNanos();
+        System.out.printf("accounts=%d transactions=%d span=%.1fs%n", ids.size(),
+                bank.streamTransactions(TransactionQuery.all()).count(), spanNanos / 1e9);
+
+        SplittableRandom rnd = new SplittableRandom(3);
+        String[] picked = new String[queries];
+        LocalDateTime[] instants = new LocalDateTime[queries];
+        for (int q = 0; q < queries; q++) {
+            picked[q] = ids.get(rnd.nextInt(ids.size()));
+            instants[q] = first.plusNanos(rnd.nextLong(spanNanos + 1));
+        }
+
+        int wrong = 0;
+        long[] indexed = new long[queries];
+        long t0 = System.nanoTime();
+        for (int q = 0; q < queries; q++) indexed[q] = bank.balanceAtMinor(picked[q], instants[q]);
+        long indexedNanos = System.nanoTime() - t0;
+        t0 = System.nanoTime();
+        for (int q = 0; q < queries; q++) {
+            if (replay(bank, picked[q], instants[q]) != indexed[q]) wrong++;
+        }
+        long replayNanos = System.nanoTime() - t0;
+        System.out.printf("balanceAt:     indexed %8.2f us/query   account replay %10.2f us/query%n",
+                indexedNanos / 1e3 / queries, replayNanos / 1e3 / queries);
+
+        int snapshots = 5;
+        long snapshotNanos = 0;
+        long fullNanos = 0;
+        for (int n = 0; n < snapshots; n++) {
+            LocalDateTime instant = first.plusNanos(rnd.nextLong(spanNanos + 1));
+            t0 = System.nanoTime();
+            Map<String, Long> asOf = bank.balancesAtMinor(instant);
+            snapshotNanos += System.nanoTime() - t0;
+            t0 = System.nanoTime();
+            Map<String, Long> replayed = replayAll(bank, instant);
+            fullNanos += System.nanoTime() - t0;
+            for (Map.Entry<String, Long> e : asOf.entrySet()) {
+                if (replayed.getOrDefault(e.getKey(), 0L).longValue() != e.getValue()) wrong++;
+            }
+        }
+        System.out.printf("balancesAt:    indexed %8.2f ms/snapshot ledger replay %8.2f ms/snapshot%n",
+                snapshotNanos / 1e6 / snapshots, fullNanos / 1e6 / snapshots);
+
+        LocalDateTime now = LocalDateTime.now();
+        for (String id : ids) {
+            if (bank.balanceAtMinor(id, now) != bank.getAccount(id).getBalanceMinor()) wrong++;
+        }
+        System.out.printf("wrong answers=%d%n", wrong);
+        if (wrong != 0) System.exit(1);
+    }
+
+    // the account's history from the start, up to its first transaction after instant
+    private static long replay(Bank bank, String accountId, LocalDateTime instant) {
+        long balance = 0;
+        for (Transaction t : bank.listTransactionsForAccount(accountId)) {
+            if (t.getTimestamp().isAfter(instant)) break;
+            balance += accountId.equals(t.getFromAccountId()) ? -t.getAmountMinor() : t.getAmountMinor();
+        }
+        return balance;
+    }
+
+    // one pass over the whole ledger; each account stops at its first transaction after instant
+    private static Map<String, Long> replayAll(Bank bank, LocalDateTime instant) {
+        Map<String, Long> balances = new HashMap<>();
+        Set<String> stopped = new HashSet<>();
+        for (Transaction t : (Iterable<Transaction>) bank.streamTransactions(TransactionQuery.all())::iterator) {
+            boolean after = t.getTimestamp().isAfter(instant);
+            apply(balances, stopped, t.getFromAccountId(), -t.getAmountMinor(), after);
+            apply(balances, stopped, t.getToAccountId(), t.getAmountMinor(), after);
+        }
+        return balances;
+    }
+
+    private static void apply(Map<String, Long> balances, Set<String> stopped, String accountId, long delta, boolean after) {
+        if (accountId == null || stopped.contains(accountId)) return;
+        if (after) stopped.add(accountId);
+        else balances.merge(accountId, delta, Long::sum);
+    }
+}
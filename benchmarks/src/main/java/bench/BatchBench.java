@@ -0,0 +1,70 @@
+package bench;
+
+import models.Account;
+import models.Customer;
+import services.Bank;
+import services.BatchMode;
+import services.BatchResult;
+import services.Operation;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Payroll-style throughput: the same operations applied one call at a time and
+ * through {@link Bank#applyBatch}, in memory and with a group-commit journal.
+ *
+ * Usage: java bench.BatchBench [operations] [batchSize] [rounds]
+ */
+public class BatchBench {
+    public static void main(String[] args) throws Exception {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int batchSize = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        for (boolean journaled : new boolean[] { false, true }) {
+            for (int r = 0; r < rounds; r++) {
+                double batched = run(operations, batchSize, true, journaled);
+                double single = run(operations, batchSize, false, journaled);
+                System.out.printf("journal=%-5s round %d: single=%.0f ops/s batch=%.0f ops/s (x%.2f)%n",
+                        journaled, r, single, batched, batched / single);
+            }
+        }
+    }
+
+    private static double run(int operations, int batchSize, boolean batched, boolean journaled) throws Exception {
+        Bank bank = new Bank();
+        Customer c = bank.createCustomer("Payroll", "payroll@example.com", "0000000000");
+        String employer = bank.createCurrentAccount(c.getCustomerId(), 1e12, 0).getAccountId();
+        List<String> employees = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            Account a = bank.createSavingsAccount(c.getCustomerId(), 0, 2.0);
+            employees.add(a.getAccountId());
+        }
+        SplittableRandom rnd = new SplittableRandom(1);
+        List<Operation> ops = new ArrayList<>(operations);
+        for (int i = 0; i < operations; i++) {
+            String to = employees.get(rnd.nextInt(employees.size()));
+            ops.add(i % 2 == 0 ? Operation.transfer(employer, to, 1000, "Salary") : Operation.deposit(to, 50, "Bonus"));
+        }
+
+        if (journaled) bank.enableJournal(Files.createTempDirectory("batch-bench").resolve("bank.db").toString(), true);
+
+        long t0 = System.nanoTime();
+        if (batched) {
+            for (int i = 0; i < operations; i += batchSize) {
+                BatchResult result = bank.applyBatch(ops.subList(i, Math.min(operations, i + batchSize)), BatchMode.ALL_OR_NOTHING);
+                if (!result.isFullyApplied()) throw new IllegalStateException("Batch failed: " + result.getItems().get(0));
+            }
+        } else {
+            for (Operation op : ops) {
+                if (op.getFromAccountId() != null) bank.transfer(op.getFromAccountId(), op.getToAccountId(), op.getAmount(), op.getNote());
+                else bank.deposit(op.getToAccountId(), op.getAmount(), op.getNote());
+            }
+        }
+        double rate = operations / ((System.nanoTime() - t0) / 1e9);
+        bank.closeJournal();
+        return rate;
+    }
+}
@@ -0,0 +1,136 @@
+package bench;
+
+import exceptions.EntityNotFoundException;
+import models.Customer;
+import services.Bank;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Email and phone lookups against a bank of many customers: exact email and phone
+ * lookups and case-insensitive prefix searches through the indexes, compared with the
+ * linear scan over listCustomers they replace. Every indexed answer is checked; exits
+ * non-zero on a wrong one.
+ *
+ * Usage: java -Xmx<big> bench.CustomerLookupBench [customers] [lookups]   (10M needs about 8g)
+ */
+public class CustomerLookupBench {
+    public static void main(String[] args) throws Exception {
+        int customers = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int lookups = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+
+        Bank bank = new Bank();
+        bank.getMetrics().setEnabled(false);
+        long t0 = System.nanoTime();
+        for (int i = 0; i < customers; i++) bank.createCustomer("Customer " + i, email(i), phone(i));
+        double seconds = (System.nanoTime() - t0) / 1e9;
+        System.out.printf("customers=%d created in %.1fs (%.0f/s)%n", customers, seconds, customers / seconds);
+
+        SplittableRandom rnd = new SplittableRandom(11);
+        int wrong = 0;
+        t0 = System.nanoTime();
+        for (int n = 0; n < lookups; n++) {
+            int i = rnd.nextInt(customers);
+            // mixed case on purpose: lookups are case-insensitive
+            Customer c = bank.findCustomerByEmail(email(i).toUpperCase(Locale.ROOT));
+            if (!c.getName().equals("Customer " + i)) wrong++;
+        }
+        report("email lookup", lookups, System.nanoTime() - t0);
+
+        t0 = System.nanoTime();
+        for (int n = 0; n < lookups; n++) {
+            int i = rnd.nextInt(customers);
+            List<Customer> found = bank.findCustomersByPhone(phone(i));
+            if (found.size() != 1 || !found.get(0).getName().equals("Customer " + i)) wrong++;
+        }
+        report("phone lookup", lookups, System.nanoTime() - t0);
+
+        int searches = Math.max(1, lookups / 10);
+        t0 = System.nanoTime();
+        for (int n = 0; n < searches; n++) {
+            String prefix = "Customer" + rnd.nextInt(Math.max(1, customers / 100));
+            for (Customer c : bank.searchCustomersByEmail(prefix, 20)) {
+                if (!c.getEmail().startsWith(prefix.toLowerCase(Locale.ROOT))) wrong++;
+            }
+        }
+        report("email prefix search (20)", searches, System.nanoTime() - t0);
+
+        t0 = System.nanoTime();
+        for (int n = 0; n < searches; n++) {
+            String prefix = phone(rnd.nextInt(customers)).substring(0, 8);
+            for (Customer c : bank.searchCustomersByPhone(prefix, 20)) {
+                if (!c.getPhone().startsWith(prefix)) wrong++;
+            }
+        }
+        report("phone prefix search (20)", searches, System.nanoTime() - t0);
+
+        int scans = 5;
+        t0 = System.nanoTime();
+        for (int n = 0; n < scans; n++) {
+            String target = email(rnd.nextInt(customers));
+            Customer hit = null;
+            for (Customer c : bank.listCustomers()) {
+                if (c.getEmail().equalsIgnoreCase(target)) {
+                    hit = c;
+                    break;
+                }
+            }
+            if (hit == null) wrong++;
+        }
+        report("linear scan (before)", scans, System.nanoTime() - t0);
+
+        // a changed email is found under the new address only, and duplicates are refused
+        Customer moved = bank.findCustomerByEmail(email(0));
+        bank.updateCustomerContact(moved.getCustomerId(), "moved@example.com", moved.getPhone());
+        if (bank.findCustomerByEmail("Moved@Example.com") != moved) wrong++;
+        try {
+            bank.findCustomerByEmail(email(0));
+            wrong++;
+        } catch (EntityNotFoundException expected) {
+            // the old address was released
+        }
+        if (customers > 1) {
+            try {
+                bank.createCustomer("Duplicate", email(1), phone(1));
+                wrong++;
+            } catch (IllegalArgumentException expected) {
+                // emails are unique
+            }
+            try {
+                bank.updateCustomerContact(moved.getCustomerId(), email(1), moved.getPhone());
+                wrong++;
+            } catch (IllegalArgumentException expected) {
+                // on change too, and the customer keeps its address
+                if (bank.findCustomerByEmail("moved@example.com") != moved) wrong++;
+            }
+        }
+        // the customer's own setters go through the bank as well
+        moved.setEmail("direct@example.com");
+        if (bank.findCustomerByEmail("direct@example.com") != moved) wrong++;
+        if (customers > 1) {
+            try {
+                moved.setEmail(email(1));
+                wrong++;
+            } catch (IllegalArgumentException expected) {
+                if (!"direct@example.com".equals(moved.getEmail())) wrong++;
+            }
+        }
+
+        System.out.printf("wrong answers=%d%n", wrong);
+        if (wrong != 0) System.exit(1);
+    }
+
+    private static String email(int i) {
+        return "customer" + i + "@example.com";
+    }
+
+    private static String phone(int i) {
+        return String.format("9%09d", i);
+    }
+
+    private static void report(String what, int count, long nanos) {
+        System.out.printf("%-26s %9d ops %10.2f us/op%n", what, count, nanos / 1e3 / count);
+    }
+}
@@ -0,0 +1,57 @@
+package bench;
+
+import models.Customer;
+import services.Bank;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Wall-clock time of a month-end interest run over the whole book at several
+ * fork-join parallelism levels. Each level credits one more month on the same bank.
+ * 10M accounts need a large heap, e.g. -Xmx16g.
+ *
+ * Usage: java bench.InterestBench [accounts] [parallelism,...] [rounds]
+ */
+public class InterestBench {
+    public static void main(String[] args) throws Exception {
+        int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        String levels = args.length > 1 ? args[1] : defaultLevels();
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        Bank bank = new Bank();
+        Customer c = bank.createCustomer("Saver", "saver@example.com", "0000000000");
+        long t0 = System.nanoTime();
+        IntStream.range(0, accounts).parallel().forEach(i -> {
+            try {
+                bank.createSavingsAccount(c.getCustomerId(), 1000 + i % 5000, 1.0 + (i % 8) * 0.5);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        System.out.printf("opened %,d savings accounts in %.1fs%n", accounts, (System.nanoTime() - t0) / 1e9);
+
+        for (String level : levels.split(",")) {
+            int parallelism = Integer.parseInt(level.trim());
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                for (int r = 0; r < rounds; r++) {
+                    long start = System.nanoTime();
+                    int credited = bank.applyMonthlyInterest(1, pool);
+                    double secs = (System.nanoTime() - start) / 1e9;
+                    System.out.printf("parallelism=%2d round %d: %,d accounts credited in %.3fs (%,.0f accounts/s)%n",
+                            parallelism, r, credited, secs, credited / secs);
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private static String defaultLevels() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        StringBuilder sb = new StringBuilder("1");
+        for (int p = 2; p <= cores; p <<= 1) sb.append(',').append(p);
+        return sb.toString();
+    }
+}
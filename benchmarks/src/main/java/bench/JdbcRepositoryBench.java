@@ -0,0 +1,90 @@
+package bench;
+
+import models.Account;
+import models.Customer;
+import services.Bank;
+import services.TransactionQuery;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Deposits and transfers against a bank opened over an embedded H2 file database, with
+ * account caches smaller and larger than the working set. Traffic is skewed: 90% of it
+ * goes to a hot tenth of the accounts. Expected balances are tracked alongside and the
+ * database is reopened afterwards; exits non-zero if any balance or the ledger length
+ * read back differs.
+ *
+ * Needs the H2 driver on the classpath (a runtime dependency of bank-core).
+ *
+ * Usage: java bench.JdbcRepositoryBench [accounts] [operations] [cacheSize,...]
+ */
+public class JdbcRepositoryBench {
+    public static void main(String[] args) throws Exception {
+        int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        String[] caches = (args.length > 2 ? args[2] : "500,2000,50000").split(",");
+        boolean ok = true;
+        for (String cache : caches) ok &= run(accounts, operations, Integer.parseInt(cache.trim()));
+        if (!ok) System.exit(1);
+    }
+
+    private static boolean run(int accounts, int operations, int cacheSize) throws Exception {
+        Path dir = Files.createTempDirectory("jdbc-bench");
+        String url = "jdbc:h2:file:" + dir.resolve("bank").toAbsolutePath();
+        Bank db = Bank.openJdbc(url, cacheSize);
+        Map<String, Long> expected = new HashMap<>();
+
+        long t0 = System.nanoTime();
+        List<String> ids = new ArrayList<>(accounts);
+        for (int i = 0; i < accounts; i++) {
+            Customer c = db.createCustomer("Customer " + i, "c" + i + "@example.com", "0000000000");
+            Account a = db.createSavingsAccount(c.getCustomerId(), 1_000, 2.0);
+            expected.put(a.getAccountId(), 100_000L);
+            ids.add(a.getAccountId());
+        }
+        db.flushRepository();
+        double seedSeconds = (System.nanoTime() - t0) / 1e9;
+
+        SplittableRandom rnd = new SplittableRandom(7);
+        int hot = Math.max(2, accounts / 10);
+        t0 = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            String a = ids.get(pick(rnd, accounts, hot));
+            String b = ids.get(pick(rnd, accounts, hot));
+            if (i % 2 == 0 || a.equals(b)) {
+                db.depositMinor(a, 1_000, "Bench");
+                expected.merge(a, 1_000L, Long::sum);
+            } else {
+                db.transferMinor(a, b, 500, "Bench");
+                expected.merge(a, -500L, Long::sum);
+                expected.merge(b, 500L, Long::sum);
+            }
+        }
+        db.flushRepository();
+        double seconds = (System.nanoTime() - t0) / 1e9;
+        db.closeRepository();
+
+        Bank reopened = Bank.openJdbc(url, cacheSize);
+        int mismatches = 0;
+        for (String id : ids) {
+            if (reopened.getAccount(id).getBalanceMinor() != expected.get(id)) mismatches++;
+        }
+        long ledger = reopened.streamTransactions(TransactionQuery.all()).count();
+        reopened.closeRepository();
+
+        System.out.printf("cache=%-6d accounts=%d seed=%.1fs ops=%d %.0f ops/s mismatched balances=%d ledger=%d/%d%n",
+                cacheSize, accounts, seedSeconds, operations, operations / seconds, mismatches, ledger, accounts + operations);
+        return mismatches == 0 && ledger == accounts + operations;
+    }
+
+    // 90% of picks land in the first `hot` accounts
+    private static int pick(SplittableRandom rnd, int accounts, int hot) {
+        return rnd.nextInt(10) < 9 ? rnd.nextInt(hot) : hot + rnd.nextInt(accounts - hot);
+    }
+}
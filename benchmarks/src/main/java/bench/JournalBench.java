@@ -0,0 +1,69 @@
+package bench;
+
+import models.Account;
+import models.Customer;
+import services.Bank;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Compares journaled commits per second with and without group commit.
+ * Every thread runs deposits against a journaled bank; each deposit returns only
+ * once its journal record is on disk.
+ *
+ * Usage: java bench.JournalBench [threads] [depositsPerThread]
+ */
+public class JournalBench {
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int perThread = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        for (boolean groupCommit : new boolean[] { false, true }) {
+            double rate = run(groupCommit, threads, perThread);
+            System.out.printf("groupCommit=%-5s threads=%d commits=%d rate=%.0f commits/s%n",
+                    groupCommit, threads, threads * perThread, rate);
+        }
+    }
+
+    private static double run(boolean groupCommit, int threads, int perThread) throws Exception {
+        Path dir = Files.createTempDirectory("journal-bench");
+        String path = dir.resolve("bank.db").toString();
+        Bank bank = new Bank();
+        Customer c = bank.createCustomer("Bench", "bench@example.com", "0000000000");
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            Account a = bank.createCurrentAccount(c.getCustomerId(), 0, 0);
+            ids.add(a.getAccountId());
+        }
+        bank.enableJournal(path, groupCommit);
+
+        List<Thread> workers = new ArrayList<>();
+        long t0 = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            Thread w = new Thread(() -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                try {
+                    for (int i = 0; i < perThread; i++) {
+                        bank.deposit(ids.get(rnd.nextInt(ids.size())), 1 + rnd.nextInt(100), null);
+                    }
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            workers.add(w);
+            w.start();
+        }
+        for (Thread w : workers) w.join();
+        long elapsed = System.nanoTime() - t0;
+        bank.closeJournal();
+
+        Bank recovered = Bank.loadFromFile(path);
+        if (recovered.listAllTransactions().size() != bank.listAllTransactions().size()) {
+            throw new IllegalStateException("Journal replay lost transactions");
+        }
+        return (double) threads * perThread / (elapsed / 1e9);
+    }
+}
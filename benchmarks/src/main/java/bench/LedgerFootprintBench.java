@@ -0,0 +1,63 @@
+package bench;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import models.Account;
+import models.Customer;
+import services.Bank;
+
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Heap footprint and GC pauses of the heap ledger against the memory-mapped ledger.
+ * Run each store in its own JVM with the same -Xmx so the numbers are comparable.
+ *
+ * Usage: java -Xmx<n> bench.LedgerFootprintBench heap|mapped [transactions]   e.g. mapped 50000000
+ */
+public class LedgerFootprintBench {
+    public static void main(String[] args) throws Exception {
+        String store = args.length > 0 ? args[0] : "heap";
+        long transactions = args.length > 1 ? Long.parseLong(args[1]) : 5_000_000L;
+
+        AtomicLong maxPauseMs = new AtomicLong();
+        AtomicLong totalPauseMs = new AtomicLong();
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            ((NotificationEmitter) gc).addNotificationListener((n, h) -> {
+                if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(n.getType())) return;
+                long ms = GarbageCollectionNotificationInfo.from((CompositeData) n.getUserData()).getGcInfo().getDuration();
+                totalPauseMs.addAndGet(ms);
+                maxPauseMs.accumulateAndGet(ms, Math::max);
+            }, null, null);
+        }
+
+        Bank bank = new Bank();
+        if ("mapped".equals(store)) bank.useMappedLedger(Files.createTempDirectory("ledger").toString());
+        Customer c = bank.createCustomer("Footprint", "footprint@example.com", "0000000000");
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            Account a = bank.createCurrentAccount(c.getCustomerId(), 0, 0);
+            ids.add(a.getAccountId());
+        }
+        SplittableRandom rnd = new SplittableRandom(7);
+        long t0 = System.nanoTime();
+        for (long i = 0; i < transactions; i++) {
+            bank.deposit(ids.get(rnd.nextInt(ids.size())), 1 + rnd.nextInt(1000), "Footprint");
+        }
+        long elapsed = System.nanoTime() - t0;
+
+        System.gc();
+        long heapUsed = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        System.out.printf("store=%s transactions=%d%n", store, transactions);
+        System.out.printf("  append rate=%.0f/s%n", transactions / (elapsed / 1e9));
+        System.out.printf("  heap after GC=%dMB (%.1f bytes/transaction)%n", heapUsed >> 20, (double) heapUsed / transactions);
+        System.out.printf("  GC pauses total=%dms max=%dms%n", totalPauseMs.get(), maxPauseMs.get());
+        System.out.printf("  sample history size=%d%n", bank.countTransactionsForAccount(ids.get(0)));
+    }
+}
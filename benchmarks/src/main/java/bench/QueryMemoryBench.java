@@ -0,0 +1,114 @@
+package bench;
+
+import models.Account;
+import models.Customer;
+import models.Transaction;
+import services.Bank;
+import services.BatchMode;
+import services.Operation;
+import services.TransactionPage;
+import services.TransactionQuery;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Heap held by an in-flight transaction query as one account's history grows. The ledger
+ * is memory-mapped so the history itself stays off-heap; the streamed and paged scans
+ * should hold the same few kilobytes at every size while the materialized list grows with
+ * the history. Exits non-zero if a streaming scan's footprint grows with history.
+ *
+ * Usage: java -Xmx<n> bench.QueryMemoryBench [transactions,...]   e.g. 250000,1000000,4000000
+ */
+public class QueryMemoryBench {
+    private static final int PAGE = 1_000;
+    private static final long TOLERANCE = 4L << 20; // GC accounting noise between runs
+
+    public static void main(String[] args) throws Exception {
+        String[] sizes = (args.length > 0 ? args[0] : "250000,1000000,4000000").split(",");
+        Bank bank = new Bank();
+        bank.useMappedLedger(Files.createTempDirectory("ledger").toString());
+        Customer c = bank.createCustomer("Query", "query@example.com", "0000000000");
+        Account acc = bank.createCurrentAccount(c.getCustomerId(), 0, 0);
+        String id = acc.getAccountId();
+        TransactionQuery query = TransactionQuery.forAccount(id).ofTypes(Transaction.Type.DEPOSIT).minAmount(1.00);
+
+        System.out.printf("%12s %14s %14s %14s%n", "history", "stream(KB)", "paged(KB)", "list(KB)");
+        long firstStream = -1, firstPaged = -1, worst = 0;
+        long recorded = 0;
+        for (String size : sizes) {
+            long target = Long.parseLong(size.trim());
+            recorded = grow(bank, id, recorded, target);
+
+            long baseline = usedAfterGc();
+            long stream = streamed(bank, query, target) - baseline;
+            long paged = paged(bank, query, target) - baseline;
+            long list = listed(bank, id) - baseline;
+            System.out.printf("%,12d %,14d %,14d %,14d%n", target, stream >> 10, paged >> 10, list >> 10);
+
+            if (firstStream < 0) { firstStream = stream; firstPaged = paged; }
+            worst = Math.max(worst, Math.max(stream - firstStream, paged - firstPaged));
+        }
+        if (worst > TOLERANCE) {
+            System.err.printf("FAILED: query footprint grew by %,d KB with history%n", worst >> 10);
+            System.exit(1);
+        }
+        System.out.println("OK: streamed and paged footprint independent of history length");
+    }
+
+    private static long grow(Bank bank, String id, long from, long to) {
+        List<Operation> batch = new ArrayList<>(10_000);
+        for (long i = from; i < to; i++) {
+            batch.add(Operation.deposit(id, 1 + i % 100, null));
+            if (batch.size() == 10_000 || i == to - 1) {
+                bank.applyBatch(batch, BatchMode.BEST_EFFORT);
+                batch.clear();
+            }
+        }
+        return to;
+    }
+
+    // heap in use halfway through the scan, while the query still holds whatever it holds
+    private static long streamed(Bank bank, TransactionQuery query, long total) {
+        Iterator<Transaction> it = bank.streamTransactions(query).iterator();
+        long seen = 0, mid = 0;
+        while (it.hasNext()) {
+            it.next();
+            if (++seen == total / 2) mid = usedAfterGc();
+        }
+        check(seen, total);
+        return mid;
+    }
+
+    private static long paged(Bank bank, TransactionQuery query, long total) {
+        long cursor = 0, seen = 0, mid = 0;
+        TransactionPage page;
+        do {
+            page = bank.queryTransactions(query, cursor, PAGE);
+            seen += page.getTransactions().size();
+            cursor = page.getNextCursor();
+            if (mid == 0 && seen >= total / 2) mid = usedAfterGc();
+        } while (page.hasMore());
+        check(seen, total);
+        return mid;
+    }
+
+    private static long listed(Bank bank, String id) {
+        List<Transaction> all = bank.listTransactionsForAccount(id);
+        long used = usedAfterGc();
+        if (all.isEmpty()) throw new IllegalStateException("empty history");
+        return used;
+    }
+
+    private static void check(long seen, long expected) {
+        if (seen != expected) throw new IllegalStateException("scan returned " + seen + " of " + expected);
+    }
+
+    private static long usedAfterGc() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
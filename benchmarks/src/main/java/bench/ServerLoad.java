@@ -0,0 +1,246 @@
+package bench;
+
+import server.BankServer;
+import services.Bank;
+import services.LatencyHistogram;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load generator for {@link BankServer}. Opens many loopback connections, keeps
+ * {@code depth} pipelined requests in flight on each (70% transfers, 30% balance reads
+ * over a shared set of accounts) and reports throughput and latency percentiles measured
+ * from send to response. Afterwards the balances are summed over the protocol; transfers
+ * move money but never create it, so exits non-zero if the total changed.
+ *
+ * Without host:port it starts a server over a fresh in-process bank. Each connection
+ * costs a file descriptor on both ends, so raise {@code ulimit -n} for tens of thousands.
+ *
+ * Usage: java bench.ServerLoad [connections] [depth] [seconds] [accounts] [host:port]
+ */
+public class ServerLoad {
+    private static final long INITIAL_BALANCE = 1_000_000_00L;
+    private static final long WARMUP_NANOS = 1_000_000_000L;
+
+    public static void main(String[] args) throws Exception {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int accounts = args.length > 3 ? Integer.parseInt(args[3]) : 1_000;
+
+        BankServer server = null;
+        InetSocketAddress address;
+        if (args.length > 4) {
+            String[] hp = args[4].split(":");
+            address = new InetSocketAddress(hp[0], Integer.parseInt(hp[1]));
+        } else {
+            server = new BankServer(new Bank(), new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            server.start();
+            address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort());
+        }
+
+        String[] ids = seed(address, accounts);
+
+        int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+        Client[] clients = new Client[threads];
+        for (int i = 0; i < threads; i++) clients[i] = new Client(ids, depth, 31L * i + 7);
+        for (int i = 0; i < connections; i++) clients[i % threads].connect(address);
+
+        long start = System.nanoTime();
+        long measureFrom = start + WARMUP_NANOS;
+        long stopAt = measureFrom + seconds * 1_000_000_000L;
+        List<Thread> running = new ArrayList<>();
+        for (Client c : clients) {
+            Thread t = new Thread(() -> c.run(measureFrom, stopAt), "load-client");
+            running.add(t);
+            t.start();
+        }
+        for (Thread t : running) t.join();
+
+        LatencyHistogram.Summary s = Client.LATENCY.summary();
+        long ops = s.getCount();
+        System.out.printf("connections=%d depth=%d accounts=%d ops=%d %.0f ops/s errors=%d%n",
+                connections, depth, accounts, ops, ops / (double) seconds, Client.ERRORS.sum());
+        System.out.printf("latency us: mean=%.1f p50=%.1f p99=%.1f p99.9=%.1f max=%.1f%n",
+                s.getMeanNanos() / 1e3, s.percentile(50) / 1e3, s.percentile(99) / 1e3,
+                s.percentile(99.9) / 1e3, s.getMaxNanos() / 1e3);
+
+        long total = totalBalance(address, ids);
+        long expected = INITIAL_BALANCE * accounts;
+        System.out.printf("total balance before=%d after=%d%n", expected, total);
+        if (server != null) server.close();
+        if (total != expected) {
+            System.out.println("FAIL: money was created or lost");
+            System.exit(1);
+        }
+    }
+
+    // one customer with `accounts` current accounts, created over a single pipelined connection
+    private static String[] seed(InetSocketAddress address, int accounts) throws IOException {
+        try (Socket s = new Socket(address.getAddress(), address.getPort())) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+            OutputStream out = s.getOutputStream();
+            out.write("CUSTOMER Load load@example.com 0000000000\n".getBytes(StandardCharsets.UTF_8));
+            String customerId = value(in.readLine());
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < accounts; i++) sb.append("OPEN ").append(customerId).append(' ').append(INITIAL_BALANCE).append('\n');
+            out.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+            String[] ids = new String[accounts];
+            for (int i = 0; i < accounts; i++) ids[i] = value(in.readLine());
+            return ids;
+        }
+    }
+
+    private static long totalBalance(InetSocketAddress address, String[] ids) throws IOException {
+        try (Socket s = new Socket(address.getAddress(), address.getPort())) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for (String id : ids) sb.append("BALANCE ").append(id).append('\n');
+            s.getOutputStream().write(sb.toString().getBytes(StandardCharsets.UTF_8));
+            long total = 0;
+            for (int i = 0; i < ids.length; i++) total += Long.parseLong(value(in.readLine()));
+            return total;
+        }
+    }
+
+    private static String value(String response) throws IOException {
+        if (response == null || !response.startsWith("OK ")) throw new IOException("Unexpected response: " + response);
+        return response.substring(3);
+    }
+
+    /**
+     * One selector thread driving a share of the connections. Responses arrive in request
+     * order, so each connection keeps its send times in a ring and pairs them off FIFO.
+     */
+    private static final class Client {
+        static final LatencyHistogram LATENCY = new LatencyHistogram();
+        static final LongAdder ERRORS = new LongAdder();
+
+        private final String[] ids;
+        private final int depth;
+        private final SplittableRandom rnd;
+        private final Selector selector;
+        private final List<Conn> conns = new ArrayList<>();
+
+        Client(String[] ids, int depth, long seed) throws IOException {
+            this.ids = ids;
+            this.depth = depth;
+            this.rnd = new SplittableRandom(seed);
+            this.selector = Selector.open();
+        }
+
+        void connect(InetSocketAddress address) throws IOException {
+            SocketChannel ch = SocketChannel.open(address);
+            ch.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            ch.configureBlocking(false);
+            Conn c = new Conn(ch, depth);
+            c.key = ch.register(selector, SelectionKey.OP_READ, c);
+            conns.add(c);
+        }
+
+        void run(long measureFrom, long stopAt) {
+            try {
+                long now = System.nanoTime();
+                for (Conn c : conns) {
+                    while (c.inFlight < depth) send(c, now);
+                    c.flush();
+                }
+                int busy = conns.size();
+                while (busy > 0) {
+                    selector.select(100);
+                    Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                    while (it.hasNext()) {
+                        SelectionKey key = it.next();
+                        it.remove();
+                        Conn c = (Conn) key.attachment();
+                        if (key.isWritable()) c.flush();
+                        if (!key.isReadable()) continue;
+                        if (c.ch.read(c.in) < 0) throw new IOException("Server closed a connection");
+                        now = System.nanoTime();
+                        c.in.flip();
+                        for (int i = 0; i < c.in.limit(); i++) {
+                            byte b = c.in.get(i);
+                            if (c.atLineStart && b == 'E') ERRORS.increment();
+                            c.atLineStart = b == '\n';
+                            if (b != '\n') continue;
+                            long sent = c.sentAt[c.head];
+                            c.head = (c.head + 1) % depth;
+                            c.inFlight--;
+                            if (sent >= measureFrom && now < stopAt) LATENCY.record(now - sent);
+                        }
+                        c.in.clear();
+                        if (now < stopAt) {
+                            while (c.inFlight < depth) send(c, now);
+                            c.flush();
+                        } else if (c.inFlight == 0 && !c.done) {
+                            c.done = true;
+                            busy--;
+                        }
+                    }
+                }
+                for (Conn c : conns) c.ch.close();
+                selector.close();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private void send(Conn c, long now) {
+            String a = ids[rnd.nextInt(ids.length)];
+            String request;
+            if (rnd.nextInt(10) < 7 && ids.length > 1) {
+                String b = ids[rnd.nextInt(ids.length)];
+                while (b.equals(a)) b = ids[rnd.nextInt(ids.length)];
+                request = "TRANSFER " + a + " " + b + " " + (1 + rnd.nextInt(10_000)) + "\n";
+            } else {
+                request = "BALANCE " + a + "\n";
+            }
+            c.out.put(request.getBytes(StandardCharsets.UTF_8));
+            c.sentAt[c.tail] = now;
+            c.tail = (c.tail + 1) % depth;
+            c.inFlight++;
+        }
+    }
+
+    private static final class Conn {
+        final SocketChannel ch;
+        final ByteBuffer in = ByteBuffer.allocate(16 * 1024);
+        final ByteBuffer out;
+        final long[] sentAt;
+        SelectionKey key;
+        int head, tail, inFlight;
+        boolean atLineStart = true;
+        boolean done;
+
+        Conn(SocketChannel ch, int depth) {
+            this.ch = ch;
+            this.out = ByteBuffer.allocate(depth * 128);
+            this.sentAt = new long[depth];
+        }
+
+        void flush() throws IOException {
+            out.flip();
+            ch.write(out);
+            out.compact();
+            boolean pending = out.position() > 0;
+            key.interestOps(pending ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package bench;
+
+import models.Account;
+import models.Customer;
+import services.Bank;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Measures startup (load) time of a compact snapshot against the serialized-bank path.
+ * The ledger is built with deposits spread over a fixed set of accounts.
+ *
+ * Usage: java -Xmx<big> bench.StartupBench [transactions...]   e.g. 1000000 10000000 100000000
+ */
+public class StartupBench {
+    public static void main(String[] args) throws Exception {
+        long[] sizes = args.length == 0 ? new long[] { 1_000_000L } : new long[args.length];
+        for (int i = 0; i < args.length; i++) sizes[i] = Long.parseLong(args[i]);
+        for (long size : sizes) run(size);
+    }
+
+    private static void run(long transactions) throws Exception {
+        Bank bank = new Bank();
+        Customer c = bank.createCustomer("Startup", "startup@example.com", "0000000000");
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            Account a = bank.createCurrentAccount(c.getCustomerId(), 0, 0);
+            ids.add(a.getAccountId());
+        }
+        SplittableRandom rnd = new SplittableRandom(42);
+        for (long i = 0; i < transactions; i++) {
+            bank.deposit(ids.get(rnd.nextInt(ids.size())), 1 + rnd.nextInt(1000), "Load");
+        }
+
+        Path dir = Files.createTempDirectory("startup-bench");
+        String serialized = dir.resolve("bank.ser").toString();
+        String snapshot = dir.resolve("bank.snap").toString();
+        long t0 = System.nanoTime();
+        bank.saveToFile(serialized);
+        long t1 = System.nanoTime();
+        bank.writeSnapshot(snapshot);
+        long t2 = System.nanoTime();
+        bank = null;
+
+        double loadSerialized = timeLoad(serialized);
+        double loadSnapshot = timeLoad(snapshot);
+        System.out.printf("transactions=%d%n", transactions);
+        System.out.printf("  serialized: save=%.2fs load=%.2fs size=%dMB%n",
+                (t1 - t0) / 1e9, loadSerialized, Files.size(Path.of(serialized)) >> 20);
+        System.out.printf("  snapshot:   save=%.2fs load=%.2fs size=%dMB%n",
+                (t2 - t1) / 1e9, loadSnapshot, Files.size(Path.of(snapshot)) >> 20);
+    }
+
+    private static double timeLoad(String path) throws Exception {
+        System.gc();
+        long t0 = System.nanoTime();
+        Bank loaded = Bank.loadFromFile(path);
+        long elapsed = System.nanoTime() - t0;
+        if (loaded.listCustomers().isEmpty()) throw new IllegalStateException("Nothing loaded from " + path);
+        return elapsed / 1e9;
+    }
+}
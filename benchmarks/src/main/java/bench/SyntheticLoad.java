@@ -0,0 +1,52 @@
+package bench;
+
+import services.Bank;
+import utils.SyntheticDataGenerator;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Production-scale synthetic load. In {@code bank} mode the generated stream is applied to a
+ * live bank from {@code threads} threads and the throughput under hot-account contention is
+ * reported; in {@code file} mode the dataset is written as a snapshot and loaded back.
+ *
+ * Usage: java bench.SyntheticLoad bank|file [customers] [transactions] [threads] [seed] [file]
+ */
+public class SyntheticLoad {
+    public static void main(String[] args) throws Exception {
+        String mode = args.length > 0 ? args[0] : "bank";
+        int customers = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        long transactions = args.length > 2 ? Long.parseLong(args[2]) : 2_000_000;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 42;
+        SyntheticDataGenerator gen = new SyntheticDataGenerator(seed)
+                .customers(customers)
+                .transactions(transactions)
+                .parallelism(threads);
+
+        if (mode.equals("file")) {
+            Path file = args.length > 5 ? Paths.get(args[5]) : Files.createTempFile("synthetic", ".snap");
+            long t0 = System.nanoTime();
+            gen.writeSnapshot(file);
+            double written = (System.nanoTime() - t0) / 1e9;
+            long t1 = System.nanoTime();
+            Bank bank = Bank.loadFromFile(file.toString());
+            double loaded = (System.nanoTime() - t1) / 1e9;
+            System.out.printf("wrote %s (%,d bytes) in %.2fs; loaded %,d customers and %,d transactions in %.2fs%n",
+                    file, Files.size(file), written, bank.listCustomers().size(), bank.listAllTransactions().size(), loaded);
+            return;
+        }
+
+        Bank bank = new Bank();
+        long t0 = System.nanoTime();
+        String[] ids = gen.createAccounts(bank);
+        System.out.printf("created %,d customers and %,d accounts in %.2fs%n", customers, ids.length, (System.nanoTime() - t0) / 1e9);
+        long t1 = System.nanoTime();
+        long applied = gen.applyTransactions(bank, ids);
+        double secs = (System.nanoTime() - t1) / 1e9;
+        System.out.printf("threads=%d applied %,d of %,d operations in %.2fs (%,.0f ops/s)%n",
+                threads, applied, transactions, secs, applied / secs);
+    }
+}
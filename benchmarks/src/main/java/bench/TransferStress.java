@@ -0,0 +1,93 @@
+package bench;
+
+import exceptions.InsufficientFundsException;
+import models.Account;
+import models.Customer;
+import models.Money;
+import services.Bank;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Multi-threaded transfer stress and throughput harness.
+ * Fires random transfers between accounts from many threads and checks that the
+ * total money in the bank is unchanged afterwards. With {@code sequenced} set the
+ * transfers go through the bank's single-writer sequencer instead of the account locks.
+ *
+ * Usage: java bench.TransferStress [accounts] [threads] [transfers] [sequenced]
+ */
+public class TransferStress {
+    public static void main(String[] args) throws Exception {
+        int accountCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        long transfers = args.length > 2 ? Long.parseLong(args[2]) : 2_000_000L;
+        boolean sequenced = args.length > 3 && Boolean.parseBoolean(args[3]);
+
+        Bank bank = new Bank();
+        Customer c = bank.createCustomer("Stress", "stress@example.com", "0000000000");
+        List<String> ids = new ArrayList<>(accountCount);
+        for (int i = 0; i < accountCount; i++) {
+            Account a = (i % 2 == 0)
+                    ? bank.createSavingsAccount(c.getCustomerId(), 1_000, 3.0)
+                    : bank.createCurrentAccount(c.getCustomerId(), 1_000, 500);
+            ids.add(a.getAccountId());
+        }
+        long before = totalBalance(bank, ids);
+        if (sequenced) bank.startSequencer();
+
+        AtomicLong rejected = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        long perThread = transfers / threads;
+        for (int t = 0; t < threads; t++) {
+            Thread w = new Thread(() -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                    for (long i = 0; i < perThread; i++) {
+                        int from = rnd.nextInt(accountCount);
+                        int to = rnd.nextInt(accountCount - 1);
+                        if (to >= from) to++;
+                        try {
+                            bank.transfer(ids.get(from), ids.get(to), 1 + rnd.nextInt(100), null);
+                        } catch (InsufficientFundsException e) {
+                            rejected.incrementAndGet();
+                        }
+                    }
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }, "transfer-" + t);
+            workers.add(w);
+            w.start();
+        }
+        long t0 = System.nanoTime();
+        start.countDown();
+        for (Thread w : workers) w.join();
+        long elapsed = System.nanoTime() - t0;
+        if (sequenced) bank.stopSequencer();
+
+        long after = totalBalance(bank, ids);
+        long done = perThread * threads;
+        System.out.printf("accounts=%d threads=%d sequenced=%s transfers=%d rejected=%d%n",
+                accountCount, threads, sequenced, done, rejected.get());
+        System.out.printf("elapsed=%.2fs throughput=%.0f transfers/s%n", elapsed / 1e9, done / (elapsed / 1e9));
+        System.out.printf("total before=%s after=%s%n", Money.format(before), Money.format(after));
+        if (before != after) {
+            System.err.println("FAILED: money was created or destroyed");
+            System.exit(1);
+        }
+        System.out.println("OK: total money unchanged");
+    }
+
+    // exact: balances are summed in minor units
+    private static long totalBalance(Bank bank, List<String> ids) throws Exception {
+        long total = 0;
+        for (String id : ids) total += bank.getAccount(id).getBalanceMinor();
+        return total;
+    }
+}
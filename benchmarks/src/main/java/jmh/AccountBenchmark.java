@@ -0,0 +1,42 @@
+package jmh;
+
+import models.Account;
+import models.Customer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Customer and account lifecycle: creating customers and accounts, and the
+ * per-customer account lookup.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class AccountBenchmark {
+
+    // distinct per thread so customer emails never repeat
+    @State(Scope.Thread)
+    public static class Counter {
+        long next;
+    }
+
+    @Benchmark
+    public Customer createCustomer(BankState s, Counter n) {
+        long i = n.next++;
+        return s.bank.createCustomer("Bench " + i, "bench-" + Thread.currentThread().getId() + "-" + i + "@example.com", "0000000000");
+    }
+
+    @Benchmark
+    public Account createSavingsAccount(BankState s) throws Exception {
+        return s.bank.createSavingsAccount(s.randomCustomer(), 100.0, 3.5);
+    }
+
+    @Benchmark
+    public List<Account> listAccountsForCustomer(BankState s) {
+        return s.bank.listAccountsForCustomer(s.randomCustomer());
+    }
+}
@@ -0,0 +1,44 @@
+package jmh;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import services.Bank;
+import utils.SeedData;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A bank seeded by {@link SeedData} with {@code accounts} accounts (two per customer) and
+ * ten transactions per account. Rebuilt every iteration so write benchmarks do not
+ * measure an ever-growing ledger.
+ */
+@State(Scope.Benchmark)
+public class BankState {
+    @Param({"1000", "100000"})
+    public int accounts;
+
+    public Bank bank;
+    public String[] accountIds;
+    public String[] customerIds;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws Exception {
+        bank = new Bank();
+        List<String> ids = SeedData.seed(bank, accounts / 2, 2, 10, 42);
+        accountIds = ids.toArray(new String[0]);
+        customerIds = new String[accountIds.length / 2];
+        for (int i = 0; i < customerIds.length; i++) customerIds[i] = bank.getAccount(accountIds[2 * i]).getCustomerId();
+    }
+
+    public String randomAccount() {
+        return accountIds[ThreadLocalRandom.current().nextInt(accountIds.length)];
+    }
+
+    public String randomCustomer() {
+        return customerIds[ThreadLocalRandom.current().nextInt(customerIds.length)];
+    }
+}
@@ -0,0 +1,33 @@
+package jmh;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler attached, so every result also reports
+ * allocation per operation (gc.alloc.rate.norm). Unless {@code -t} is given, each
+ * selected benchmark runs once per thread count in {@code -Dbench.threads} (default 1,4).
+ * Every other argument is passed to JMH, e.g.
+ *
+ *   java -Dbench.threads=1,8 -jar benchmarks/target/benchmarks.jar MoneyOperations -p accounts=100000
+ */
+public class BenchmarkMain {
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        if (cmd.shouldHelp() || cmd.shouldList() || cmd.shouldListWithParams() || cmd.shouldListProfilers()) {
+            Main.main(args);
+            return;
+        }
+        if (cmd.getThreads().hasValue()) {
+            new Runner(new OptionsBuilder().parent(cmd).addProfiler(GCProfiler.class).build()).run();
+            return;
+        }
+        for (String t : System.getProperty("bench.threads", "1,4").split(",")) {
+            new Runner(new OptionsBuilder().parent(cmd).addProfiler(GCProfiler.class)
+                    .threads(Integer.parseInt(t.trim())).build()).run();
+        }
+    }
+}
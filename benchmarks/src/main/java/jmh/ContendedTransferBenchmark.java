@@ -0,0 +1,61 @@
+package jmh;
+
+import exceptions.InsufficientFundsException;
+import models.Customer;
+import models.Transaction;
+import org.openjdk.jmh.annotations.*;
+import services.Bank;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transfers among a handful of hot accounts, applied either by the calling threads under
+ * the account locks or by the single-writer sequencer. Run with several threads
+ * ({@code -Dbench.threads=1,4,16}) to see how each model degrades under contention.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class ContendedTransferBenchmark {
+    @Param({"16", "1024"})
+    public int accounts;
+
+    @Param({"false", "true"})
+    public boolean sequenced;
+
+    private Bank bank;
+    private String[] accountIds;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws Exception {
+        bank = new Bank();
+        Customer c = bank.createCustomer("Bench", "bench@example.com", "0000000000");
+        accountIds = new String[accounts];
+        for (int i = 0; i < accounts; i++) {
+            accountIds[i] = bank.createCurrentAccount(c.getCustomerId(), 1_000_000, 0).getAccountId();
+        }
+        if (sequenced) bank.startSequencer();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws Exception {
+        bank.stopSequencer();
+    }
+
+    @Benchmark
+    public Transaction transfer() throws Exception {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        int from = rnd.nextInt(accounts);
+        int to = rnd.nextInt(accounts - 1);
+        if (to >= from) to++;
+        try {
+            return bank.transferMinor(accountIds[from], accountIds[to], 1 + rnd.nextInt(100), "Bench transfer");
+        } catch (InsufficientFundsException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package jmh;
+
+import org.openjdk.jmh.annotations.*;
+import utils.SnowflakeIdGenerator;
+import utils.UuidIdGenerator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a new entity id: random UUIDs against Snowflake ids, as strings and as raw longs.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IdGeneratorBenchmark {
+    private final UuidIdGenerator uuid = new UuidIdGenerator();
+    private final SnowflakeIdGenerator snowflake = new SnowflakeIdGenerator(1);
+
+    @Benchmark
+    public String uuid() {
+        return uuid.nextId();
+    }
+
+    @Benchmark
+    public String snowflake() {
+        return snowflake.nextId();
+    }
+
+    @Benchmark
+    public long snowflakeLong() {
+        return snowflake.nextLong();
+    }
+}
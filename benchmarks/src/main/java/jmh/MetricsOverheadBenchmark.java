@@ -0,0 +1,58 @@
+package jmh;
+
+import exceptions.InsufficientFundsException;
+import models.Transaction;
+import org.openjdk.jmh.annotations.*;
+import services.Bank;
+import utils.SeedData;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The hot money operations with operation metrics switched on and off; the gap between the
+ * two {@code metrics} rows is the cost of instrumentation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class MetricsOverheadBenchmark {
+    @Param({"true", "false"})
+    public boolean metrics;
+
+    private Bank bank;
+    private String[] accountIds;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        bank = new Bank();
+        List<String> ids = SeedData.seed(bank, 5_000, 2, 10, 42);
+        accountIds = ids.toArray(new String[0]);
+        bank.getMetrics().setEnabled(metrics);
+    }
+
+    private String randomAccount() {
+        return accountIds[ThreadLocalRandom.current().nextInt(accountIds.length)];
+    }
+
+    @Benchmark
+    public Transaction deposit() throws Exception {
+        return bank.depositMinor(randomAccount(), 1_000, "Bench deposit");
+    }
+
+    @Benchmark
+    public Transaction transfer() throws Exception {
+        String from = randomAccount();
+        String to = randomAccount();
+        if (from.equals(to)) return null;
+        try {
+            return bank.transferMinor(from, to, 100, "Bench transfer");
+        } catch (InsufficientFundsException e) {
+            return null;
+        }
+    }
+}
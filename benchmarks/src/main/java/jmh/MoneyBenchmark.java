@@ -0,0 +1,66 @@
+package jmh;
+
+import models.Money;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The balance arithmetic of a deposit, a withdrawal and a month's interest in three
+ * representations: double, {@link Money} minor units and BigDecimal. With -prof gc the
+ * minor-unit and double variants should show no allocation per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoneyBenchmark {
+    private static final int ACCOUNTS = 1024;
+    private static final double RATE = 3.5;
+    private static final BigDecimal MONTHLY_RATE = new BigDecimal("0.035").divide(new BigDecimal(12), 10, RoundingMode.HALF_UP);
+
+    private final double[] doubles = new double[ACCOUNTS];
+    private final long[] minors = new long[ACCOUNTS];
+    private final BigDecimal[] decimals = new BigDecimal[ACCOUNTS];
+    private final double amount = 12.34;
+    private final long amountMinor = Money.ofDouble(12.34);
+    private final BigDecimal amountDecimal = new BigDecimal("12.34");
+    private int next;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < ACCOUNTS; i++) {
+            doubles[i] = 1000 + i;
+            minors[i] = Money.ofDouble(1000 + i);
+            decimals[i] = BigDecimal.valueOf(minors[i], Money.SCALE);
+        }
+    }
+
+    @Benchmark
+    public double doubleOps() {
+        int i = next++ & (ACCOUNTS - 1);
+        double b = doubles[i] + amount;
+        doubles[i] = b -= amount;
+        return b + b * (RATE / 100.0 / 12.0);
+    }
+
+    @Benchmark
+    public long minorUnitOps() {
+        int i = next++ & (ACCOUNTS - 1);
+        long b = Money.add(minors[i], amountMinor);
+        minors[i] = b = Money.subtract(b, amountMinor);
+        return Money.add(b, Money.interest(b, RATE, 1));
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalOps() {
+        int i = next++ & (ACCOUNTS - 1);
+        BigDecimal b = decimals[i].add(amountDecimal);
+        decimals[i] = b = b.subtract(amountDecimal);
+        return b.add(b.multiply(MONTHLY_RATE).setScale(Money.SCALE, RoundingMode.HALF_UP));
+    }
+}
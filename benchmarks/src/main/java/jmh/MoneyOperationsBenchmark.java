@@ -0,0 +1,51 @@
+package jmh;
+
+import exceptions.InsufficientFundsException;
+import models.Transaction;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deposits, withdrawals and transfers between random accounts, plus reading an
+ * account's history back.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class MoneyOperationsBenchmark {
+
+    @Benchmark
+    public Transaction deposit(BankState s) throws Exception {
+        return s.bank.deposit(s.randomAccount(), 10.0, "Bench deposit");
+    }
+
+    @Benchmark
+    public Transaction withdraw(BankState s) throws Exception {
+        try {
+            return s.bank.withdraw(s.randomAccount(), 1.0, "Bench withdrawal");
+        } catch (InsufficientFundsException e) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    public Transaction transfer(BankState s) throws Exception {
+        String from = s.randomAccount();
+        String to = s.randomAccount();
+        if (from.equals(to)) return null;
+        try {
+            return s.bank.transfer(from, to, 1.0, "Bench transfer");
+        } catch (InsufficientFundsException e) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    public List<Transaction> listTransactionsForAccount(BankState s) {
+        return s.bank.listTransactionsForAccount(s.randomAccount());
+    }
+}
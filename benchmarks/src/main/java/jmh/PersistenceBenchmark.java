@@ -0,0 +1,80 @@
+package jmh;
+
+import org.openjdk.jmh.annotations.*;
+import services.Bank;
+import utils.SeedData;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Saving and loading a seeded bank, both as a serialized object graph and as a binary snapshot.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class PersistenceBenchmark {
+    @Param({"1000", "100000"})
+    public int accounts;
+
+    private Path dir;
+    private Bank bank;
+    private String saved;
+    private String snapshot;
+
+    // every thread saves to its own file
+    @State(Scope.Thread)
+    public static class Target {
+        String path;
+
+        @Setup
+        public void setUp(PersistenceBenchmark b) {
+            path = b.dir.resolve("save-" + Thread.currentThread().getId() + ".db").toString();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("bank-bench");
+        bank = new Bank();
+        SeedData.seed(bank, accounts / 2, 2, 10, 42);
+        saved = dir.resolve("bank.db").toString();
+        snapshot = dir.resolve("bank.snap").toString();
+        bank.saveToFile(saved);
+        bank.writeSnapshot(snapshot);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) files::iterator) Files.deleteIfExists(p);
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public void saveToFile(Target t) throws IOException {
+        bank.saveToFile(t.path);
+    }
+
+    @Benchmark
+    public Bank loadFromFile() throws Exception {
+        return Bank.loadFromFile(saved);
+    }
+
+    @Benchmark
+    public void writeSnapshot(Target t) throws IOException {
+        bank.writeSnapshot(t.path);
+    }
+
+    @Benchmark
+    public Bank loadSnapshot() throws Exception {
+        return Bank.loadFromFile(snapshot);
+    }
+}
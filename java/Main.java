@@ -1,20 +1,38 @@
 import services.Bank;
+import services.TransactionPage;
+import services.TransactionQuery;
 import models.*;
 import exceptions.*;
+import server.BankServer;
 import utils.SeedData;
 
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Scanner;
 
 /**
- * Demo CLI for bank module
+ * Demo CLI for bank module.
+ * {@code java Main serve [port]} instead serves the bank on loopback (see server.BankServer).
  */
 public class Main {
-    public static void main(String[] args) {
+    private static final int PAGE_SIZE = 20;
+    private static final int DEFAULT_PORT = 7070;
+
+    public static void main(String[] args) throws Exception {
         Bank bank = new Bank();
 
         // seed some sample data
         SeedData.seed(bank);
+        // visible in jconsole/VisualVM under bank:type=BankMetrics
+        bank.getMetrics().registerMBean("main");
+
+        if (args.length > 0 && args[0].equals("serve")) {
+            serve(bank, args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PORT);
+            return;
+        }
 
         Scanner sc = new Scanner(System.in);
         printWelcome();
@@ -71,11 +89,18 @@ public class Main {
                         bank.transfer(fa, ta, tamt, "Manual transfer");
                         System.out.println("Transfer successful");
                         break;
-                    case "7": // list transactions for account
+                    case "7": // list transactions for account, a page at a time
                         System.out.print("AccountId: "); String txa = sc.nextLine();
-                        List<Transaction> txs = bank.listTransactionsForAccount(txa);
                         System.out.println("Transactions:");
-                        txs.forEach(System.out::println);
+                        TransactionQuery query = TransactionQuery.forAccount(txa);
+                        TransactionPage page = bank.queryTransactions(query, 0, PAGE_SIZE);
+                        page.getTransactions().forEach(System.out::println);
+                        while (page.hasMore()) {
+                            System.out.print("Enter for more, q to stop: ");
+                            if (sc.nextLine().trim().equalsIgnoreCase("q")) break;
+                            page = bank.queryTransactions(query, page.getNextCursor(), PAGE_SIZE);
+                            page.getTransactions().forEach(System.out::println);
+                        }
                         break;
                     case "8": // save bank to file
                         System.out.print("Save path (e.g. bank.db): "); String path = sc.nextLine();
@@ -85,9 +110,32 @@ public class Main {
                     case "9": // load from file
                         System.out.print("Load path: "); String loadPath = sc.nextLine();
                         Bank loaded = Bank.loadFromFile(loadPath);
+                        bank.getMetrics().unregisterMBean();
                         bank = loaded;
+                        bank.getMetrics().registerMBean("main");
                         System.out.println("Loaded bank from " + loadPath);
                         break;
+                    case "10": // operation metrics
+                        System.out.print(bank.getMetrics().dump());
+                        break;
+                    case "11": // monthly statement from the rollups
+                        System.out.print("AccountId: "); String sta = sc.nextLine();
+                        System.out.print("Month (yyyy-MM, blank for current): "); String m = sc.nextLine().trim();
+                        YearMonth month = m.isEmpty() ? YearMonth.now() : YearMonth.parse(m);
+                        System.out.println(bank.monthlySummary(sta, month));
+                        break;
+                    case "12": // find customers by email or phone prefix
+                        System.out.print("Email or phone prefix: "); String prefix = sc.nextLine().trim();
+                        List<Customer> found = prefix.contains("@") || prefix.chars().anyMatch(Character::isLetter)
+                                ? bank.searchCustomersByEmail(prefix, PAGE_SIZE)
+                                : bank.searchCustomersByPhone(prefix, PAGE_SIZE);
+                        found.forEach(System.out::println);
+                        break;
+                    case "13": // balance at a past time
+                        System.out.print("AccountId: "); String baa = sc.nextLine();
+                        System.out.print("As of (yyyy-MM-ddTHH:mm:ss): "); LocalDateTime asOf = LocalDateTime.parse(sc.nextLine().trim());
+                        System.out.println("Balance: " + Money.format(bank.balanceAtMinor(baa, asOf)));
+                        break;
                     case "0":
                         running = false;
                         break;
@@ -107,6 +155,20 @@ public class Main {
         System.out.println("Goodbye!");
     }
 
+    private static void serve(Bank bank, int port) throws Exception {
+        BankServer server = new BankServer(bank, new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+            } catch (Exception e) {
+                System.err.println("Error: " + e.getMessage());
+            }
+        }));
+        System.out.println("Serving on " + InetAddress.getLoopbackAddress().getHostAddress() + ":" + server.getPort());
+        server.awaitClose();
+    }
+
     private static void printWelcome() {
         System.out.println("=== Simple Bank Management System ===");
     }
@@ -122,6 +184,10 @@ public class Main {
         System.out.println("7 - List transactions for account");
         System.out.println("8 - Save bank to file");
         System.out.println("9 - Load bank from file");
+        System.out.println("10 - Show metrics");
+        System.out.println("11 - Monthly statement");
+        System.out.println("12 - Find customers");
+        System.out.println("13 - Balance at a past time");
         System.out.println("0 - Exit");
     }
 }
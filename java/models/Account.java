@@ -1,42 +1,108 @@
 package models;
 
+import exceptions.InsufficientFundsException;
+import utils.Ids;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.time.LocalDateTime;
-import java.util.UUID;
 
 /**
  * Abstract account class. Concrete account types extend this.
+ * Balance changes are synchronized on the account so concurrent callers never lose updates.
+ * Balances are kept in minor units (see {@link Money}); the {@code double} methods convert at the edge.
  */
 public abstract class Account implements Serializable {
     private static final long serialVersionUID = 1L;
 
-    protected final String accountId;
-    protected final String customerId;
-    protected double balance;
-    protected final LocalDateTime createdAt;
+    // files written before balances moved to minor units carry a double "balance"
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("accountId", String.class),
+            new ObjectStreamField("customerId", String.class),
+            new ObjectStreamField("balance", double.class),
+            new ObjectStreamField("balanceMinor", long.class),
+            new ObjectStreamField("createdAt", LocalDateTime.class),
+            new ObjectStreamField("isActive", boolean.class),
+    };
+
+    // not final: readObject assigns them
+    protected String accountId;
+    protected String customerId;
+    protected long balance; // minor units
+    protected LocalDateTime createdAt;
     protected boolean isActive;
 
     public Account(String customerId, double initialDeposit) {
-        this.accountId = UUID.randomUUID().toString();
+        this.accountId = Ids.next();
         this.customerId = customerId;
-        this.balance = initialDeposit;
+        this.balance = Money.ofDouble(initialDeposit);
         this.createdAt = LocalDateTime.now();
         this.isActive = true;
     }
 
+    // restores an account with a known id and balance (minor units), e.g. when replaying the journal
+    protected Account(String accountId, String customerId, long balance, LocalDateTime createdAt) {
+        this.accountId = accountId;
+        this.customerId = customerId;
+        this.balance = balance;
+        this.createdAt = createdAt;
+        this.isActive = true;
+    }
+
     public String getAccountId() { return accountId; }
     public String getCustomerId() { return customerId; }
-    public double getBalance() { return balance; }
+    public synchronized long getBalanceMinor() { return balance; }
+    public double getBalance() { return Money.toDouble(getBalanceMinor()); }
     public LocalDateTime getCreatedAt() { return createdAt; }
     public boolean isActive() { return isActive; }
     public void close() { isActive = false; }
 
-    public abstract void deposit(double amount) throws IllegalArgumentException;
-    public abstract void withdraw(double amount) throws IllegalArgumentException, InsufficientFundsException;
+    // sets a balance already worked out and journaled, e.g. when replaying the journal
+    public synchronized void restoreBalanceMinor(long balance) { this.balance = balance; }
+    public void restoreBalance(double balance) { restoreBalanceMinor(Money.ofDouble(balance)); }
+
+    public abstract void depositMinor(long amount) throws IllegalArgumentException;
+    public abstract void withdrawMinor(long amount) throws IllegalArgumentException, InsufficientFundsException;
+
+    // throws as withdrawMinor would if the balance were the given one; changes nothing
+    public abstract void checkWithdrawMinor(long balance, long amount) throws IllegalArgumentException, InsufficientFundsException;
+
+    public void deposit(double amount) throws IllegalArgumentException {
+        depositMinor(Money.ofDouble(amount));
+    }
+
+    public void withdraw(double amount) throws IllegalArgumentException, InsufficientFundsException {
+        withdrawMinor(Money.ofDouble(amount));
+    }
+
+    private synchronized void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("accountId", accountId);
+        fields.put("customerId", customerId);
+        fields.put("balance", Money.toDouble(balance));
+        fields.put("balanceMinor", balance);
+        fields.put("createdAt", createdAt);
+        fields.put("isActive", isActive);
+        out.writeFields();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        accountId = (String) fields.get("accountId", null);
+        customerId = (String) fields.get("customerId", null);
+        balance = fields.defaulted("balanceMinor")
+                ? Money.ofDouble(fields.get("balance", 0.0))
+                : fields.get("balanceMinor", 0L);
+        createdAt = (LocalDateTime) fields.get("createdAt", null);
+        isActive = fields.get("isActive", false);
+    }
 
     @Override
     public String toString() {
-        return String.format("%s{accountId='%s', customerId='%s', balance=%.2f, createdAt=%s, active=%s}",
-                this.getClass().getSimpleName(), accountId, customerId, balance, createdAt, isActive);
+        return String.format("%s{accountId='%s', customerId='%s', balance=%s, createdAt=%s, active=%s}",
+                this.getClass().getSimpleName(), accountId, customerId, Money.format(getBalanceMinor()), createdAt, isActive);
     }
 }
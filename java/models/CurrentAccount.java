@@ -1,30 +1,70 @@
 package models;
 
+import exceptions.InsufficientFundsException;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
+import java.time.LocalDateTime;
+
 /**
  * Current account (may have overdraft facility).
  */
 public class CurrentAccount extends Account {
     private static final long serialVersionUID = 1L;
-    private double overdraftLimit;
+
+    // files written before amounts moved to minor units carry a double "overdraftLimit"
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("overdraftLimit", double.class),
+            new ObjectStreamField("overdraftLimitMinor", long.class),
+    };
+
+    private long overdraftLimit; // minor units
 
     public CurrentAccount(String customerId, double initialDeposit, double overdraftLimit) {
         super(customerId, initialDeposit);
+        this.overdraftLimit = Money.ofDouble(overdraftLimit);
+    }
+
+    public CurrentAccount(String accountId, String customerId, long balance, long overdraftLimit, LocalDateTime createdAt) {
+        super(accountId, customerId, balance, createdAt);
         this.overdraftLimit = overdraftLimit;
     }
 
-    public double getOverdraftLimit() { return overdraftLimit; }
-    public void setOverdraftLimit(double overdraftLimit) { this.overdraftLimit = overdraftLimit; }
+    public long getOverdraftLimitMinor() { return overdraftLimit; }
+    public double getOverdraftLimit() { return Money.toDouble(overdraftLimit); }
+    public void setOverdraftLimit(double overdraftLimit) { this.overdraftLimit = Money.ofDouble(overdraftLimit); }
 
     @Override
-    public void deposit(double amount) {
+    public synchronized void depositMinor(long amount) {
         if (amount <= 0) throw new IllegalArgumentException("Deposit amount must be > 0");
-        balance += amount;
+        balance = Money.add(balance, amount);
     }
 
     @Override
-    public void withdraw(double amount) throws InsufficientFundsException {
+    public synchronized void withdrawMinor(long amount) throws InsufficientFundsException {
+        checkWithdrawMinor(balance, amount);
+        balance -= amount;
+    }
+
+    @Override
+    public void checkWithdrawMinor(long balance, long amount) throws InsufficientFundsException {
         if (amount <= 0) throw new IllegalArgumentException("Withdraw amount must be > 0");
         if (balance - amount < -overdraftLimit) throw new InsufficientFundsException("Overdraft limit exceeded");
-        balance -= amount;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("overdraftLimit", Money.toDouble(overdraftLimit));
+        fields.put("overdraftLimitMinor", overdraftLimit);
+        out.writeFields();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        overdraftLimit = fields.defaulted("overdraftLimitMinor")
+                ? Money.ofDouble(fields.get("overdraftLimit", 0.0))
+                : fields.get("overdraftLimitMinor", 0L);
     }
 }
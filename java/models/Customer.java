@@ -1,8 +1,9 @@
 package models;
 
+import utils.Ids;
+
 import java.io.Serializable;
 import java.util.Objects;
-import java.util.UUID;
 
 /**
  * Customer of the bank.
@@ -10,13 +11,33 @@ import java.util.UUID;
 public class Customer implements Serializable {
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Makes a change asked for through a customer's setters, e.g. so an index over the
+     * details and the storage behind it stay in step; it sets the new details itself
+     * through {@link #restoreContact}. Throwing rejects the change and leaves the customer
+     * as it was.
+     */
+    public interface ContactListener {
+        void changeEmail(Customer customer, String email);
+        void changePhone(Customer customer, String phone);
+    }
+
     private final String customerId;
     private String name;
     private String email;
     private String phone;
+    private transient volatile ContactListener contactListener;
 
     public Customer(String name, String email, String phone) {
-        this.customerId = UUID.randomUUID().toString();
+        this.customerId = Ids.next();
+        this.name = name;
+        this.email = email;
+        this.phone = phone;
+    }
+
+    // restores a customer with a known id, e.g. when replaying the journal
+    public Customer(String customerId, String name, String email, String phone) {
+        this.customerId = customerId;
         this.name = name;
         this.email = email;
         this.phone = phone;
@@ -26,9 +47,48 @@ public class Customer implements Serializable {
     public String getName() { return name; }
     public void setName(String name) { this.name = name; }
     public String getEmail() { return email; }
-    public void setEmail(String email) { this.email = email; }
     public String getPhone() { return phone; }
-    public void setPhone(String phone) { this.phone = phone; }
+
+    public void setEmail(String email) {
+        ContactListener l = contactListener;
+        if (l != null) {
+            l.changeEmail(this, email);
+            return;
+        }
+        synchronized (this) {
+            this.email = email;
+        }
+    }
+
+    public void setPhone(String phone) {
+        ContactListener l = contactListener;
+        if (l != null) {
+            l.changePhone(this, phone);
+            return;
+        }
+        synchronized (this) {
+            this.phone = phone;
+        }
+    }
+
+    // sets contact details that have already been indexed and stored, e.g. by
+    // Bank.updateCustomerContact; no listener is told
+    public synchronized void restoreContact(String email, String phone) {
+        this.email = email;
+        this.phone = phone;
+    }
+
+    /**
+     * Hands every later setEmail/setPhone call to {@code listener}. A customer takes one
+     * listener for good: attaching the same one again does nothing, and it can be neither
+     * replaced nor removed, so the owner of the customer cannot be bypassed.
+     */
+    public synchronized void attachContactListener(ContactListener listener) {
+        if (listener == null) throw new IllegalArgumentException("Listener is null");
+        if (contactListener == listener) return;
+        if (contactListener != null) throw new IllegalStateException("Customer " + customerId + " already has a contact listener");
+        contactListener = listener;
+    }
 
     @Override
     public String toString() {
@@ -0,0 +1,63 @@
+package models;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Money as a {@code long} count of minor units (cents), matching the DECIMAL(12,2)
+ * columns in the schema. Arithmetic on minor units is exact and allocation-free;
+ * {@code double} and {@link BigDecimal} only appear at the edges, when amounts are
+ * read from or shown to a user.
+ */
+public final class Money {
+    public static final int SCALE = 2;
+    public static final long MINOR_PER_UNIT = 100;
+    // largest amount that still converts from a double without losing a cent
+    private static final double MAX_UNITS = (1L << 53) / (double) MINOR_PER_UNIT;
+
+    private Money() {}
+
+    // rounds to the nearest minor unit; 0.1 + 0.2 becomes exactly 30
+    public static long ofDouble(double amount) {
+        if (Double.isNaN(amount) || Math.abs(amount) > MAX_UNITS) {
+            throw new IllegalArgumentException("Amount out of range: " + amount);
+        }
+        return Math.round(amount * MINOR_PER_UNIT);
+    }
+
+    public static double toDouble(long minor) {
+        return minor / (double) MINOR_PER_UNIT;
+    }
+
+    public static long ofBigDecimal(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toBigDecimal(long minor) {
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    public static long subtract(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    /**
+     * Simple interest on {@code balance} for {@code months} at an annual rate in percent,
+     * rounded half up to the minor unit.
+     */
+    public static long interest(long balance, double annualRatePercent, int months) {
+        if (balance <= 0 || months <= 0) return 0;
+        return Math.round(balance * (annualRatePercent * months / 1200.0));
+    }
+
+    // "-1234.05"
+    public static String format(long minor) {
+        long abs = Math.abs(minor);
+        long cents = abs % MINOR_PER_UNIT;
+        return (minor < 0 ? "-" : "") + abs / MINOR_PER_UNIT + (cents < 10 ? ".0" : ".") + cents;
+    }
+}
@@ -1,5 +1,7 @@
 package models;
 
+import exceptions.InsufficientFundsException;
+
 import java.time.LocalDateTime;
 
 /**
@@ -11,31 +13,60 @@ public class SavingsAccount extends Account {
 
     public SavingsAccount(String customerId, double initialDeposit, double interestRate) {
         super(customerId, initialDeposit);
+        this.interestRate = checkRate(interestRate);
+    }
+
+    public SavingsAccount(String accountId, String customerId, long balance, double interestRate, LocalDateTime createdAt) {
+        super(accountId, customerId, balance, createdAt);
         this.interestRate = interestRate;
     }
 
     public double getInterestRate() { return interestRate; }
-    public void setInterestRate(double interestRate) { this.interestRate = interestRate; }
+    public void setInterestRate(double interestRate) { this.interestRate = checkRate(interestRate); }
+
+    private static double checkRate(double interestRate) {
+        if (!(interestRate >= 0)) throw new IllegalArgumentException("Interest rate must be >= 0");
+        return interestRate;
+    }
 
     @Override
-    public void deposit(double amount) {
+    public synchronized void depositMinor(long amount) {
         if (amount <= 0) throw new IllegalArgumentException("Deposit amount must be > 0");
-        balance += amount;
+        balance = Money.add(balance, amount);
+    }
+
+    @Override
+    public synchronized void withdrawMinor(long amount) throws InsufficientFundsException {
+        checkWithdrawMinor(balance, amount);
+        balance -= amount;
     }
 
     @Override
-    public void withdraw(double amount) throws InsufficientFundsException {
+    public void checkWithdrawMinor(long balance, long amount) throws InsufficientFundsException {
         if (amount <= 0) throw new IllegalArgumentException("Withdraw amount must be > 0");
         if (amount > balance) throw new InsufficientFundsException("Insufficient funds");
-        balance -= amount;
+    }
+
+    /**
+     * Interest for the specified months in minor units, simple interest calculation for
+     * demonstration. Changes nothing.
+     */
+    public synchronized long interestForMonthsMinor(int months) {
+        return Money.interest(balance, interestRate, months);
     }
 
     /**
      * Apply interest for specified months, simple interest calculation for demonstration.
+     * Returns the interest credited in minor units; nothing is credited unless it is positive.
      */
-    public void applyInterestMonths(int months) {
-        if (months <= 0) return;
-        double monthlyRate = (interestRate / 100.0) / 12.0;
-        balance += balance * monthlyRate * months;
+    public synchronized long applyInterestMonthsMinor(int months) {
+        long interest = interestForMonthsMinor(months);
+        if (interest <= 0) return 0;
+        balance = Money.add(balance, interest);
+        return interest;
+    }
+
+    public double applyInterestMonths(int months) {
+        return Money.toDouble(applyInterestMonthsMinor(months));
     }
 }
@@ -1,32 +1,60 @@
 package models;
 
+import utils.Ids;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.time.LocalDateTime;
-import java.util.UUID;
 
 /**
- * Transaction record for deposits, withdrawals and transfers
+ * Transaction record for deposits, withdrawals, transfers and interest
  */
 public class Transaction implements Serializable {
     private static final long serialVersionUID = 1L;
 
-    public enum Type { DEPOSIT, WITHDRAWAL, TRANSFER }
+    public enum Type { DEPOSIT, WITHDRAWAL, TRANSFER, INTEREST }
+
+    // files written before amounts moved to minor units carry a double "amount"
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("transactionId", String.class),
+            new ObjectStreamField("type", Type.class),
+            new ObjectStreamField("fromAccountId", String.class),
+            new ObjectStreamField("toAccountId", String.class),
+            new ObjectStreamField("amount", double.class),
+            new ObjectStreamField("amountMinor", long.class),
+            new ObjectStreamField("timestamp", LocalDateTime.class),
+            new ObjectStreamField("note", String.class),
+    };
 
-    private final String transactionId;
-    private final Type type;
-    private final String fromAccountId; // nullable for deposits
-    private final String toAccountId;   // nullable for withdrawals
-    private final double amount;
-    private final LocalDateTime timestamp;
-    private final String note;
+    // not final: readObject assigns them; never changed after construction
+    private String transactionId;
+    private Type type;
+    private String fromAccountId; // nullable for deposits
+    private String toAccountId;   // nullable for withdrawals
+    private long amount;          // minor units
+    private LocalDateTime timestamp;
+    private String note;
 
     public Transaction(Type type, String fromAccountId, String toAccountId, double amount, String note) {
-        this.transactionId = UUID.randomUUID().toString();
+        this(Ids.next(), type, fromAccountId, toAccountId, Money.ofDouble(amount), LocalDateTime.now(), note);
+    }
+
+    // a new transaction for an amount in minor units
+    public static Transaction ofMinor(Type type, String fromAccountId, String toAccountId, long amount, String note) {
+        return new Transaction(Ids.next(), type, fromAccountId, toAccountId, amount, LocalDateTime.now(), note);
+    }
+
+    // restores a recorded transaction (amount in minor units), e.g. when replaying the journal
+    public Transaction(String transactionId, Type type, String fromAccountId, String toAccountId, long amount, LocalDateTime timestamp, String note) {
+        this.transactionId = transactionId;
         this.type = type;
         this.fromAccountId = fromAccountId;
         this.toAccountId = toAccountId;
         this.amount = amount;
-        this.timestamp = LocalDateTime.now();
+        this.timestamp = timestamp;
         this.note = note;
     }
 
@@ -34,13 +62,40 @@ public class Transaction implements Serializable {
     public Type getType() { return type; }
     public String getFromAccountId() { return fromAccountId; }
     public String getToAccountId() { return toAccountId; }
-    public double getAmount() { return amount; }
+    public long getAmountMinor() { return amount; }
+    public double getAmount() { return Money.toDouble(amount); }
     public LocalDateTime getTimestamp() { return timestamp; }
     public String getNote() { return note; }
 
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("transactionId", transactionId);
+        fields.put("type", type);
+        fields.put("fromAccountId", fromAccountId);
+        fields.put("toAccountId", toAccountId);
+        fields.put("amount", Money.toDouble(amount));
+        fields.put("amountMinor", amount);
+        fields.put("timestamp", timestamp);
+        fields.put("note", note);
+        out.writeFields();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        transactionId = (String) fields.get("transactionId", null);
+        type = (Type) fields.get("type", null);
+        fromAccountId = (String) fields.get("fromAccountId", null);
+        toAccountId = (String) fields.get("toAccountId", null);
+        amount = fields.defaulted("amountMinor")
+                ? Money.ofDouble(fields.get("amount", 0.0))
+                : fields.get("amountMinor", 0L);
+        timestamp = (LocalDateTime) fields.get("timestamp", null);
+        note = (String) fields.get("note", null);
+    }
+
     @Override
     public String toString() {
-        return String.format("Transaction{id=%s, type=%s, from=%s, to=%s, amount=%.2f, time=%s, note='%s'}",
-                transactionId, type, fromAccountId, toAccountId, amount, timestamp, note);
+        return String.format("Transaction{id=%s, type=%s, from=%s, to=%s, amount=%s, time=%s, note='%s'}",
+                transactionId, type, fromAccountId, toAccountId, Money.format(amount), timestamp, note);
     }
 }
@@ -0,0 +1,354 @@
+package server;
+
+import services.Bank;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Network front end for a {@link Bank}, speaking the line protocol of {@link RequestHandler}
+ * over non-blocking sockets.
+ *
+ * A few selector threads own every connection, so tens of thousands of mostly idle clients
+ * cost a small buffer each rather than a thread each. Clients may pipeline: complete lines
+ * are queued on their connection and drained in order by one task at a time on the worker
+ * executor, so each connection gets its responses in request order while different
+ * connections run in parallel, and the responses of one drain go out in a single write.
+ * A connection that has {@link #MAX_QUEUED} requests waiting is not read until it catches up.
+ *
+ * Requests never run on the selector threads because the bank may block them (a journaled
+ * bank waits for its group commit). On a runtime with virtual threads, pass a
+ * virtual-thread-per-task executor.
+ */
+public class BankServer implements Closeable {
+    public static final int MAX_LINE = 1024;
+    public static final int MAX_QUEUED = 1024;
+    // requests one task answers before yielding the worker to other connections
+    private static final int DRAIN_BATCH = 64;
+
+    private final RequestHandler handler;
+    private final InetSocketAddress address;
+    private final Executor workers;
+    private final ExecutorService ownedWorkers; // null when the caller supplied the executor
+    private final EventLoop[] loops;
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger nextLoop = new AtomicInteger();
+    private ServerSocketChannel acceptor;
+    private Thread acceptThread;
+    private volatile boolean closed;
+
+    // one selector thread per two cores and a pool of daemon workers
+    public BankServer(Bank bank, InetSocketAddress address) {
+        this(bank, address, Math.max(1, Runtime.getRuntime().availableProcessors() / 2), null);
+    }
+
+    public BankServer(Bank bank, InetSocketAddress address, int selectorThreads, Executor workers) {
+        if (selectorThreads <= 0) throw new IllegalArgumentException("Selector threads must be > 0");
+        this.handler = new RequestHandler(bank);
+        this.address = address;
+        if (workers == null) {
+            int n = Math.max(8, 2 * Runtime.getRuntime().availableProcessors());
+            AtomicInteger count = new AtomicInteger();
+            ownedWorkers = Executors.newFixedThreadPool(n, r -> {
+                Thread t = new Thread(r, "bank-server-worker-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+            this.workers = ownedWorkers;
+        } else {
+            ownedWorkers = null;
+            this.workers = workers;
+        }
+        loops = new EventLoop[selectorThreads];
+    }
+
+    // binds and starts accepting; port 0 picks a free port, see getPort
+    public synchronized void start() throws IOException {
+        if (acceptor != null) throw new IllegalStateException("Server already started");
+        acceptor = ServerSocketChannel.open();
+        acceptor.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        acceptor.bind(address, 4096);
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = new EventLoop(Selector.open());
+            Thread t = new Thread(loops[i], "bank-server-selector-" + i);
+            t.setDaemon(true);
+            t.start();
+        }
+        acceptThread = new Thread(this::acceptLoop, "bank-server-acceptor");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+    }
+
+    public int getPort() {
+        return acceptor.socket().getLocalPort();
+    }
+
+    public int getConnectionCount() {
+        return connections.get();
+    }
+
+    // blocks until the server is closed
+    public void awaitClose() throws InterruptedException {
+        acceptThread.join();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        if (acceptor != null) acceptor.close();
+        for (EventLoop loop : loops) {
+            if (loop != null) loop.selector.wakeup();
+        }
+        if (ownedWorkers != null) ownedWorkers.shutdown();
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            SocketChannel channel;
+            try {
+                channel = acceptor.accept();
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                if (closed) return;
+                continue; // e.g. out of file descriptors; the client sees a reset
+            }
+            try {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            } catch (IOException e) {
+                closeQuietly(channel);
+                continue;
+            }
+            EventLoop loop = loops[Math.floorMod(nextLoop.getAndIncrement(), loops.length)];
+            loop.execute(() -> loop.register(channel));
+        }
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // nothing left to release
+        }
+    }
+
+    /**
+     * One selector thread. Other threads hand it work through {@link #execute}, which is
+     * also how interest changes reach a key, so keys are only ever touched here.
+     */
+    private final class EventLoop implements Runnable {
+        private final Selector selector;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean awake = new AtomicBoolean();
+
+        EventLoop(Selector selector) {
+            this.selector = selector;
+        }
+
+        void execute(Runnable task) {
+            tasks.add(task);
+            if (awake.compareAndSet(false, true)) selector.wakeup();
+        }
+
+        void register(SocketChannel channel) {
+            if (closed) {
+                closeQuietly(channel);
+                return;
+            }
+            Connection c = new Connection(channel, this);
+            try {
+                c.key = channel.register(selector, SelectionKey.OP_READ, c);
+                connections.incrementAndGet();
+            } catch (IOException e) {
+                closeQuietly(channel);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!closed) {
+                    selector.select();
+                    awake.set(false);
+                    Runnable task;
+                    while ((task = tasks.poll()) != null) task.run();
+                    Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                    while (it.hasNext()) {
+                        SelectionKey key = it.next();
+                        it.remove();
+                        Connection c = (Connection) key.attachment();
+                        if (key.isValid() && key.isWritable()) c.flush();
+                        if (key.isValid() && key.isReadable()) c.read();
+                    }
+                }
+            } catch (IOException e) {
+                // selector failure; fall through and drop this loop's connections
+            } finally {
+                List<SelectionKey> keys = new ArrayList<>(selector.keys());
+                for (SelectionKey key : keys) ((Connection) key.attachment()).close();
+                try {
+                    selector.close();
+                } catch (IOException ignored) {
+                    // shutting down anyway
+                }
+            }
+        }
+    }
+
+    /**
+     * One client. The input buffer and key belong to the selector thread; the request and
+     * response queues are shared with the worker draining them and guarded by this object.
+     */
+    private final class Connection implements Runnable {
+        private final SocketChannel channel;
+        private final EventLoop loop;
+        private final ByteBuffer in = ByteBuffer.allocate(MAX_LINE);
+        private SelectionKey key;
+        private boolean reading = true;
+        private boolean eof;             // the client shut down its side; close once answered
+
+        private final Queue<String> requests = new ArrayDeque<>();
+        private final Queue<ByteBuffer> responses = new ArrayDeque<>();
+        private boolean draining;        // a worker task owns the request queue
+
+        Connection(SocketChannel channel, EventLoop loop) {
+            this.channel = channel;
+            this.loop = loop;
+        }
+
+        // selector thread: queue every complete line and start a drain if none is running
+        void read() {
+            int n;
+            try {
+                n = channel.read(in);
+            } catch (IOException e) {
+                close();
+                return;
+            }
+            if (n < 0) {
+                eof = true;
+                interest(SelectionKey.OP_READ, false);
+                flush();
+                return;
+            }
+            boolean start = false;
+            int queued;
+            in.flip();
+            synchronized (this) {
+                int lineStart = 0;
+                for (int i = 0; i < in.limit(); i++) {
+                    if (in.get(i) != '\n') continue;
+                    int end = i > lineStart && in.get(i - 1) == '\r' ? i - 1 : i;
+                    if (end > lineStart) requests.add(new String(in.array(), lineStart, end - lineStart, StandardCharsets.UTF_8));
+                    lineStart = i + 1;
+                }
+                in.position(lineStart);
+                if (!draining && !requests.isEmpty()) {
+                    draining = true;
+                    start = true;
+                }
+                queued = requests.size();
+            }
+            in.compact();
+            if (!in.hasRemaining()) { // a line longer than MAX_LINE
+                close();
+                return;
+            }
+            if (queued >= MAX_QUEUED) {
+                reading = false;
+                interest(SelectionKey.OP_READ, false);
+            }
+            if (start) workers.execute(this);
+        }
+
+        // worker: answer up to DRAIN_BATCH requests in order, then hand the output to the selector
+        @Override
+        public void run() {
+            if (!channel.isOpen()) {
+                synchronized (this) {
+                    requests.clear();
+                    draining = false;
+                }
+                return;
+            }
+            StringBuilder out = new StringBuilder();
+            for (int i = 0; i < DRAIN_BATCH; i++) {
+                String line;
+                synchronized (this) {
+                    line = requests.poll();
+                }
+                if (line == null) break;
+                out.append(handler.handle(line)).append('\n');
+            }
+            boolean more;
+            synchronized (this) {
+                responses.add(ByteBuffer.wrap(out.toString().getBytes(StandardCharsets.UTF_8)));
+                more = !requests.isEmpty();
+                draining = more;
+            }
+            loop.execute(this::flush);
+            if (more) workers.execute(this);
+        }
+
+        // selector thread: write what the socket takes, watch for writability if anything is left
+        void flush() {
+            if (!channel.isOpen()) return;
+            boolean done;
+            synchronized (this) {
+                try {
+                    ByteBuffer b;
+                    while ((b = responses.peek()) != null) {
+                        channel.write(b);
+                        if (b.hasRemaining()) break;
+                        responses.poll();
+                    }
+                } catch (IOException e) {
+                    close();
+                    return;
+                }
+                interest(SelectionKey.OP_WRITE, !responses.isEmpty());
+                if (!reading && !eof && requests.size() < MAX_QUEUED / 2) {
+                    reading = true;
+                    interest(SelectionKey.OP_READ, true);
+                }
+                done = eof && !draining && responses.isEmpty();
+            }
+            if (done) close();
+        }
+
+        void close() {
+            if (!channel.isOpen()) return;
+            key.cancel();
+            closeQuietly(channel);
+            connections.decrementAndGet();
+        }
+
+        private void interest(int op, boolean on) {
+            if (!key.isValid()) return;
+            int ops = key.interestOps();
+            key.interestOps(on ? ops | op : ops & ~op);
+        }
+    }
+}
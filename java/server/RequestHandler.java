@@ -0,0 +1,109 @@
+package server;
+
+import exceptions.EntityNotFoundException;
+import exceptions.InsufficientFundsException;
+import models.Money;
+import models.Transaction;
+import services.Bank;
+import services.TransactionPage;
+import services.TransactionQuery;
+
+import java.util.Locale;
+
+/**
+ * The {@link BankServer} line protocol. A request is one line of space-separated fields,
+ * and each request gets exactly one response line, in request order. Amounts are in
+ * minor units (cents).
+ *
+ * <pre>
+ * PING                              OK
+ * CUSTOMER name email phone         OK customerId
+ * OPEN customerId initialAmount     OK accountId        (current account, no overdraft)
+ * DEPOSIT accountId amount          OK transactionId
+ * WITHDRAW accountId amount         OK transactionId
+ * TRANSFER fromId toId amount       OK transactionId
+ * BALANCE accountId                 OK balance
+ * HISTORY accountId cursor limit    OK nextCursor more id:TYPE:amount ...
+ * </pre>
+ *
+ * Failures answer {@code ERR code message}, where code is NOT_FOUND, INSUFFICIENT_FUNDS,
+ * BAD_REQUEST or INTERNAL. Fields cannot contain spaces.
+ */
+final class RequestHandler {
+    static final int MAX_HISTORY = 100;
+
+    private final Bank bank;
+
+    RequestHandler(Bank bank) {
+        this.bank = bank;
+    }
+
+    String handle(String line) {
+        String[] f = line.trim().split(" +");
+        try {
+            switch (f[0].toUpperCase(Locale.ROOT)) {
+                case "PING":
+                    return "OK";
+                case "CUSTOMER":
+                    expect(f, 4);
+                    return ok(bank.createCustomer(f[1], f[2], f[3]).getCustomerId());
+                case "OPEN":
+                    expect(f, 3);
+                    return ok(bank.createCurrentAccount(f[1], Money.toDouble(Long.parseLong(f[2])), 0).getAccountId());
+                case "DEPOSIT":
+                    expect(f, 3);
+                    return ok(bank.depositMinor(f[1], Long.parseLong(f[2]), "Remote deposit").getTransactionId());
+                case "WITHDRAW":
+                    expect(f, 3);
+                    return ok(bank.withdrawMinor(f[1], Long.parseLong(f[2]), "Remote withdrawal").getTransactionId());
+                case "TRANSFER":
+                    expect(f, 4);
+                    return ok(bank.transferMinor(f[1], f[2], Long.parseLong(f[3]), "Remote transfer").getTransactionId());
+                case "BALANCE":
+                    expect(f, 2);
+                    return ok(Long.toString(bank.getAccount(f[1]).getBalanceMinor()));
+                case "HISTORY":
+                    expect(f, 4);
+                    return history(f[1], Long.parseLong(f[2]), Integer.parseInt(f[3]));
+                default:
+                    return "ERR BAD_REQUEST Unknown command: " + f[0];
+            }
+        } catch (EntityNotFoundException e) {
+            return error("NOT_FOUND", e);
+        } catch (InsufficientFundsException e) {
+            return error("INSUFFICIENT_FUNDS", e);
+        } catch (NumberFormatException e) {
+            return "ERR BAD_REQUEST Invalid number";
+        } catch (IllegalArgumentException e) {
+            return error("BAD_REQUEST", e);
+        } catch (RuntimeException e) {
+            return error("INTERNAL", e);
+        }
+    }
+
+    private String history(String accountId, long cursor, int limit) throws EntityNotFoundException {
+        bank.getAccount(accountId); // unknown ids are an error rather than an empty page
+        TransactionPage page = bank.queryTransactions(TransactionQuery.forAccount(accountId), cursor,
+                Math.min(limit, MAX_HISTORY));
+        StringBuilder sb = new StringBuilder("OK ").append(page.getNextCursor()).append(' ').append(page.hasMore());
+        for (Transaction t : page.getTransactions()) {
+            sb.append(' ').append(t.getTransactionId()).append(':').append(t.getType()).append(':').append(t.getAmountMinor());
+        }
+        return sb.toString();
+    }
+
+    private static void expect(String[] fields, int count) {
+        if (fields.length != count) {
+            throw new IllegalArgumentException(fields[0] + " takes " + (count - 1) + " arguments");
+        }
+    }
+
+    private static String ok(String value) {
+        return "OK " + value;
+    }
+
+    private static String error(String code, Exception e) {
+        String message = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+        return "ERR " + code + " " + message.replace('\n', ' ').replace('\r', ' ');
+    }
+}
@@ -0,0 +1,116 @@
+package services;
+
+import models.Transaction;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-account daily and monthly rollups, fed every transaction as it is appended to the
+ * ledger. Like {@link TransactionIndex} this is derived state: it is rebuilt as the ledger
+ * is loaded and can be recomputed from the ledger at any time.
+ *
+ * Each account tracks the balance implied by its transactions, so min/max balances come
+ * out the same whether a transaction is recorded live, replayed from the journal or read
+ * back from a snapshot. The latest day and month bucket are cached, so recording touches
+ * no map in the common case.
+ *
+ * Not synchronized: an account's rollup is only touched by a thread holding that account's
+ * lock stripe (recording and {@link Bank} readers alike), or by a single loading thread.
+ */
+class AccountAggregates {
+    private static final int TYPES = Transaction.Type.values().length;
+    // bucket layout: per-type counts, credits and debits, then min, max and closing balance
+    private static final int COUNTS = 0;
+    private static final int CREDITS = COUNTS + TYPES;
+    private static final int DEBITS = CREDITS + TYPES;
+    private static final int MIN = DEBITS + TYPES;
+    private static final int MAX = MIN + 1;
+    private static final int CLOSE = MAX + 1;
+    private static final int BUCKET_SIZE = CLOSE + 1;
+
+    private final ConcurrentHashMap<String, Rollup> byAccount = new ConcurrentHashMap<>();
+
+    void add(Transaction t) {
+        LocalDate day = t.getTimestamp().toLocalDate();
+        int type = t.getType().ordinal();
+        long amount = t.getAmountMinor();
+        String from = t.getFromAccountId();
+        String to = t.getToAccountId();
+        if (from != null) rollup(from).apply(day, type, -amount);
+        if (to != null && !to.equals(from)) rollup(to).apply(day, type, amount);
+    }
+
+    PeriodSummary day(String accountId, LocalDate day) {
+        Rollup r = byAccount.get(accountId);
+        if (r == null) return PeriodSummary.quiet(accountId, day, day.plusDays(1), 0);
+        return r.summary(accountId, r.days, day, day.plusDays(1));
+    }
+
+    PeriodSummary month(String accountId, YearMonth month) {
+        LocalDate first = month.atDay(1);
+        Rollup r = byAccount.get(accountId);
+        if (r == null) return PeriodSummary.quiet(accountId, first, first.plusMonths(1), 0);
+        return r.summary(accountId, r.months, first, first.plusMonths(1));
+    }
+
+    private Rollup rollup(String accountId) {
+        Rollup r = byAccount.get(accountId);
+        return r != null ? r : byAccount.computeIfAbsent(accountId, k -> new Rollup());
+    }
+
+    /**
+     * One account's buckets. A bucket is one flat array (see {@link #COUNTS} etc.) to keep
+     * the recording path to a few cache lines.
+     */
+    private static final class Rollup {
+        private final TreeMap<LocalDate, long[]> days = new TreeMap<>();
+        private final TreeMap<LocalDate, long[]> months = new TreeMap<>(); // keyed by the 1st
+        private long balance;
+        private long lastDay = Long.MIN_VALUE; // epoch day of dayBucket
+        private long[] dayBucket, monthBucket;
+
+        void apply(LocalDate day, int type, long delta) {
+            long opening = balance;
+            balance = Math.addExact(balance, delta);
+            long epochDay = day.toEpochDay();
+            if (epochDay != lastDay) {
+                lastDay = epochDay;
+                dayBucket = days.computeIfAbsent(day, k -> bucket(opening));
+                monthBucket = months.computeIfAbsent(day.withDayOfMonth(1), k -> bucket(opening));
+            }
+            record(dayBucket, type, delta, balance);
+            record(monthBucket, type, delta, balance);
+        }
+
+        PeriodSummary summary(String accountId, TreeMap<LocalDate, long[]> buckets, LocalDate start, LocalDate end) {
+            long[] b = buckets.get(start);
+            if (b != null) {
+                return new PeriodSummary(accountId, start, end,
+                        Arrays.copyOfRange(b, COUNTS, COUNTS + TYPES), Arrays.copyOfRange(b, CREDITS, CREDITS + TYPES),
+                        Arrays.copyOfRange(b, DEBITS, DEBITS + TYPES), b[MIN], b[MAX], b[CLOSE]);
+            }
+            Map.Entry<LocalDate, long[]> before = buckets.lowerEntry(start);
+            return PeriodSummary.quiet(accountId, start, end, before == null ? 0 : before.getValue()[CLOSE]);
+        }
+    }
+
+    private static long[] bucket(long opening) {
+        long[] b = new long[BUCKET_SIZE];
+        b[MIN] = b[MAX] = b[CLOSE] = opening;
+        return b;
+    }
+
+    private static void record(long[] b, int type, long delta, long balance) {
+        b[COUNTS + type]++;
+        if (delta >= 0) b[CREDITS + type] = Math.addExact(b[CREDITS + type], delta);
+        else b[DEBITS + type] = Math.subtractExact(b[DEBITS + type], delta);
+        b[CLOSE] = balance;
+        if (balance < b[MIN]) b[MIN] = balance;
+        if (balance > b[MAX]) b[MAX] = balance;
+    }
+}
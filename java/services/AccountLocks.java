@@ -0,0 +1,90 @@
+package services;
+
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped locks keyed by account id.
+ * Locks are always taken in ascending stripe order, so any set of threads
+ * locking overlapping groups of accounts cannot deadlock.
+ */
+class AccountLocks {
+    private final ReentrantLock[] stripes;
+    private final int mask;
+    private final BankMetrics metrics;
+
+    AccountLocks(int stripeCount, BankMetrics metrics) {
+        this.metrics = metrics;
+        int n = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        stripes = new ReentrantLock[n];
+        for (int i = 0; i < n; i++) stripes[i] = new ReentrantLock();
+        mask = n - 1;
+    }
+
+    void lock(String accountId) {
+        acquire(stripes[index(accountId)]);
+    }
+
+    void unlock(String accountId) {
+        stripes[index(accountId)].unlock();
+    }
+
+    void lockPair(String a, String b) {
+        int i = index(a), j = index(b);
+        if (i == j) { acquire(stripes[i]); return; }
+        acquire(stripes[Math.min(i, j)]);
+        acquire(stripes[Math.max(i, j)]);
+    }
+
+    void unlockPair(String a, String b) {
+        int i = index(a), j = index(b);
+        stripes[i].unlock();
+        if (i != j) stripes[j].unlock();
+    }
+
+    // locks every stripe covering the given ids; returns the stripes to pass to unlockAll
+    int[] lockAll(Collection<String> accountIds) {
+        boolean[] wanted = new boolean[stripes.length];
+        int count = 0;
+        for (String id : accountIds) {
+            int i = index(id);
+            if (!wanted[i]) { wanted[i] = true; count++; }
+        }
+        int[] idx = new int[count];
+        for (int i = 0, k = 0; k < count; i++) {
+            if (wanted[i]) idx[k++] = i;
+        }
+        for (int i : idx) acquire(stripes[i]);
+        return idx;
+    }
+
+    void unlockAll(int[] held) {
+        for (int k = held.length - 1; k >= 0; k--) stripes[held[k]].unlock();
+    }
+
+    int stripeCount() { return stripes.length; }
+
+    int stripeOf(String accountId) { return index(accountId); }
+
+    // locks stripes [from, to) in ascending order
+    void lockRange(int from, int to) {
+        for (int i = from; i < to; i++) acquire(stripes[i]);
+    }
+
+    void unlockRange(int from, int to) {
+        for (int i = to - 1; i >= from; i--) stripes[i].unlock();
+    }
+
+    // only a contended stripe is timed
+    private void acquire(ReentrantLock lock) {
+        if (lock.tryLock()) return;
+        long start = System.nanoTime();
+        lock.lock();
+        metrics.accountLockWait(System.nanoTime() - start);
+    }
+
+    private int index(String accountId) {
+        int h = accountId.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
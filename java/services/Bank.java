@@ -2,134 +2,1400 @@ package services;
 
 import models.*;
 import exceptions.*;
+import utils.Ids;
 
 import java.io.*;
+import java.sql.SQLException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
 
 /**
  * Bank service: manages customers, accounts, transactions.
- * In-memory storage with optional serialization persistence.
+ * In-memory storage with optional serialization persistence, or a database
+ * behind an LRU cache when opened with {@link #openJdbc}.
+ * With a journal enabled, every mutation is also appended to a write-ahead
+ * journal next to the saved file and {@link #loadFromFile} replays it on top
+ * of the last save. {@link #writeSnapshot} writes a compact binary image in
+ * the background instead and trims the journal to the records it does not cover.
  */
 public class Bank implements Serializable {
     private static final long serialVersionUID = 1L;
+    private static final int LOCK_STRIPES = 1024;
+    // an interest task splits until it covers at most this many accounts (or a single stripe)
+    private static final int INTEREST_LEAF_ACCOUNTS = 4096;
 
-    // Simple in-memory 'db'
-    private final Map<String, Customer> customers = new ConcurrentHashMap<>();
-    private final Map<String, Account> accounts = new ConcurrentHashMap<>();
-    private final List<Transaction> transactions = Collections.synchronizedList(new ArrayList<>());
+    // serialized form predates the pluggable ledger: the ledger is written as a plain list
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("customers", Map.class),
+            new ObjectStreamField("accounts", Map.class),
+            new ObjectStreamField("transactions", List.class),
+            new ObjectStreamField("accountsByCustomer", Map.class),
+            new ObjectStreamField("journalSeq", long.class),
+    };
+
+    // customers and accounts; heap maps unless the bank was opened over a database
+    private transient volatile BankRepository repository = new InMemoryRepository();
+    private transient volatile LedgerStore ledger = new HeapLedgerStore();
+    // customer ids by email and phone, rebuilt on load
+    private transient volatile CustomerIndex customerIndex = new CustomerIndex();
+    private transient Customer.ContactListener contacts = new Contacts();
+    // per-account view of the ledger, rebuilt on load
+    private transient volatile TransactionIndex transactionIndex = new TransactionIndex(ledger);
+    // per-account daily and monthly rollups, rebuilt on load like the index
+    private transient volatile AccountAggregates aggregates = new AccountAggregates();
+    // per-operation latencies, failures and lock waits; not persisted
+    private transient BankMetrics metrics = new BankMetrics();
+    // serializes balance changes per account; transfers take both stripes in a fixed order
+    private transient AccountLocks accountLocks = new AccountLocks(LOCK_STRIPES, metrics);
+    // mutations share it; a save takes it exclusively so the file matches a journal position
+    private transient ReentrantReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+    private transient volatile Journal journal;
+    private transient Object snapshotLock = new Object();
+    private transient ScheduledExecutorService snapshotScheduler;
+    // set while deposits, withdrawals, transfers and batches go through one writer thread
+    private transient volatile Sequencer sequencer;
+    // last journal record reflected in this object; replay starts after it
+    private long journalSeq;
+
+    public BankMetrics getMetrics() { return metrics; }
 
     // ----- Customer operations -----
     public Customer createCustomer(String name, String email, String phone) {
+        long start = metrics.start(BankMetrics.Op.CREATE_CUSTOMER);
+        try {
+            return doCreateCustomer(name, email, phone);
+        } catch (Exception e) {
+            metrics.failed(BankMetrics.Op.CREATE_CUSTOMER, e);
+            throw e;
+        } finally {
+            metrics.finish(BankMetrics.Op.CREATE_CUSTOMER, start);
+        }
+    }
+
+    private Customer doCreateCustomer(String name, String email, String phone) {
         Customer c = new Customer(name, email, phone);
-        customers.put(c.getCustomerId(), c);
+        lockCheckpoint();
+        try {
+            customerIndex.add(c); // claims the email first, so a duplicate stores nothing
+            try {
+                repository.putCustomer(c);
+            } catch (RuntimeException e) {
+                customerIndex.remove(c);
+                throw e;
+            }
+            Journal j = journal;
+            if (j != null) j.appendCustomer(c);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Journal write failed", e);
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+        c.attachContactListener(contacts);
+        awaitDurable();
         return c;
     }
 
+    /**
+     * Changes a customer's email and phone. Emails stay unique, lookups see the new details
+     * at once, and the change is stored and journaled like any other mutation. The setters
+     * of a customer the bank holds come here too.
+     */
+    public Customer updateCustomerContact(String customerId, String email, String phone) throws EntityNotFoundException {
+        long start = metrics.start(BankMetrics.Op.UPDATE_CUSTOMER);
+        try {
+            Customer c = getCustomer(customerId);
+            doUpdateCustomerContact(c, email, phone, true, true);
+            return c;
+        } catch (Exception e) {
+            metrics.failed(BankMetrics.Op.UPDATE_CUSTOMER, e);
+            throw e;
+        } finally {
+            metrics.finish(BankMetrics.Op.UPDATE_CUSTOMER, start);
+        }
+    }
+
+    // Customer.setEmail/setPhone on a customer the bank holds; c may be an instance a
+    // cached repository has evicted since, so the change is made on the stored one
+    private void updateContact(Customer c, String email, String phone, boolean newEmail, boolean newPhone) {
+        long start = metrics.start(BankMetrics.Op.UPDATE_CUSTOMER);
+        try {
+            Customer current = repository.getCustomer(c.getCustomerId());
+            if (current == null) throw new IllegalStateException("Customer not found: " + c.getCustomerId());
+            current.attachContactListener(contacts);
+            doUpdateCustomerContact(current, email, phone, newEmail, newPhone);
+            if (current != c) c.restoreContact(current.getEmail(), current.getPhone());
+        } catch (Exception e) {
+            metrics.failed(BankMetrics.Op.UPDATE_CUSTOMER, e);
+            throw e;
+        } finally {
+            metrics.finish(BankMetrics.Op.UPDATE_CUSTOMER, start);
+        }
+    }
+
+    // newEmail/newPhone say which details change; the others are kept as they are then
+    private void doUpdateCustomerContact(Customer c, String email, String phone, boolean newEmail, boolean newPhone) {
+        lockCheckpoint();
+        try {
+            synchronized (c) { // one contact change per customer at a time
+                changeContact(c, newEmail ? email : c.getEmail(), newPhone ? phone : c.getPhone());
+                Journal j = journal;
+                if (j != null) j.appendCustomer(c);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Journal write failed", e);
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+        awaitDurable();
+    }
+
+    // routes the setters of the bank's customers through updateContact
+    private final class Contacts implements Customer.ContactListener {
+        @Override
+        public void changeEmail(Customer customer, String email) {
+            updateContact(customer, email, null, true, false);
+        }
+
+        @Override
+        public void changePhone(Customer customer, String phone) {
+            updateContact(customer, null, phone, false, true);
+        }
+    }
+
+    // the new entries are claimed before the change is stored and the old ones released
+    // after, so a clash or a failed store leaves the customer as it was
+    private void changeContact(Customer c, String email, String phone) {
+        String oldEmail = c.getEmail();
+        String oldPhone = c.getPhone();
+        customerIndex.claim(c, email, phone);
+        c.restoreContact(email, phone);
+        try {
+            repository.putCustomer(c);
+        } catch (RuntimeException e) {
+            c.restoreContact(oldEmail, oldPhone);
+            customerIndex.release(c, email, phone);
+            throw e;
+        }
+        customerIndex.release(c, oldEmail, oldPhone);
+    }
+
     public Customer getCustomer(String customerId) throws EntityNotFoundException {
-        Customer c = customers.get(customerId);
+        Customer c = repository.getCustomer(customerId);
         if (c == null) throw new EntityNotFoundException("Customer not found: " + customerId);
+        c.attachContactListener(contacts);
         return c;
     }
 
     public List<Customer> listCustomers() {
-        return new ArrayList<>(customers.values());
+        List<Customer> all = new ArrayList<>(repository.customers());
+        for (Customer c : all) c.attachContactListener(contacts);
+        return all;
+    }
+
+    // ----- Customer lookups -----
+    // emails match case-insensitively; phones match on their digits, so formatting is ignored
+
+    public Customer findCustomerByEmail(String email) throws EntityNotFoundException {
+        long start = metrics.start(BankMetrics.Op.FIND_CUSTOMERS);
+        try {
+            String id = customerIndex.idByEmail(email);
+            if (id == null) throw new EntityNotFoundException("No customer with email: " + email);
+            return getCustomer(id);
+        } catch (Exception e) {
+            metrics.failed(BankMetrics.Op.FIND_CUSTOMERS, e);
+            throw e;
+        } finally {
+            metrics.finish(BankMetrics.Op.FIND_CUSTOMERS, start);
+        }
+    }
+
+    // phones need not be unique
+    public List<Customer> findCustomersByPhone(String phone) {
+        long start = metrics.start(BankMetrics.Op.FIND_CUSTOMERS);
+        try {
+            return customersOf(customerIndex.idsByPhone(phone));
+        } finally {
+            metrics.finish(BankMetrics.Op.FIND_CUSTOMERS, start);
+        }
+    }
+
+    // up to limit customers whose email starts with prefix, in email order
+    public List<Customer> searchCustomersByEmail(String prefix, int limit) {
+        if (limit <= 0) throw new IllegalArgumentException("Limit must be > 0");
+        long start = metrics.start(BankMetrics.Op.FIND_CUSTOMERS);
+        try {
+            return customersOf(customerIndex.idsByEmailPrefix(prefix, limit));
+        } finally {
+            metrics.finish(BankMetrics.Op.FIND_CUSTOMERS, start);
+        }
+    }
+
+    // up to limit customers whose phone digits start with those of prefix, in phone order
+    public List<Customer> searchCustomersByPhone(String prefix, int limit) {
+        if (limit <= 0) throw new IllegalArgumentException("Limit must be > 0");
+        long start = metrics.start(BankMetrics.Op.FIND_CUSTOMERS);
+        try {
+            return customersOf(customerIndex.idsByPhonePrefix(prefix, limit));
+        } finally {
+            metrics.finish(BankMetrics.Op.FIND_CUSTOMERS, start);
+        }
+    }
+
+    private List<Customer> customersOf(List<String> ids) {
+        List<Customer> result = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Customer c = repository.getCustomer(id);
+            if (c == null) continue;
+            c.attachContactListener(contacts);
+            result.add(c);
+        }
+        return result;
     }
 
     // ----- Account operations -----
     public Account createSavingsAccount(String customerId, double initialDeposit, double annualInterestRate) throws EntityNotFoundException {
-        requireCustomerExists(customerId);
-        SavingsAccount acc = new SavingsAccount(customerId, initialDeposit, annualInterestRate);
-        accounts.put(acc.getAccountId(), acc);
-        if (initialDeposit > 0) recordTransaction(Transaction.Type.DEPOSIT, null, acc.getAccountId(), initialDeposit, "Initial deposit");
-        return acc;
+        long start = metrics.start(BankMetrics.Op.OPEN_ACCOUNT);
+        try {
+            requireCustomerExists(customerId);
+            SavingsAccount acc = new SavingsAccount(customerId, initialDeposit, annualInterestRate);
+            openAccount(acc);
+            return acc;
+        } catch (Exception e) {
+            metrics.failed(BankMetrics.Op.OPEN_ACCOUNT, e);
+            throw e;
+        } finally {
+            metrics.finish(BankMetrics.Op.OPEN_ACCOUNT, start);
+        }
     }
 
     public Account createCurrentAccount(String customerId, double initialDeposit, double overdraftLimit) throws EntityNotFoundException {
-        requireCustomerExists(customerId);
-        CurrentAccount acc = new CurrentAccount(customerId, initialDeposit, overdraftLimit);
-        accounts.put(acc.getAccountId(), acc);
-        if (initialDeposit > 0) recordTransaction(Transaction.Type.DEPOSIT, null, acc.getAccountId(), initialDeposit, "Initial deposit");
-        return acc;
+        long start = metrics.start(BankMetrics.Op.OPEN_ACCOUNT);
+        try {
+            requireCustomerExists(customerId);
+            CurrentAccount acc = new CurrentAccount(customerId, initialDeposit, overdraftLimit);
+            openAccount(acc);
+            return acc;
+        } catch (Exception e) {
+            metrics.failed(BankMetrics.Op.OPEN_ACCOUNT, e);
+            throw e;
+        } finally {
+            metrics.finish(BankMetrics.Op.OPEN_ACCOUNT, start);
+        }
     }
 
     public Account getAccount(String accountId) throws EntityNotFoundException {
-        Account acc = accounts.get(accountId);
+        Account acc = repository.getAccount(accountId);
         if (acc == null) throw new EntityNotFoundException("Account not found: " + accountId);
         return acc;
     }
 
+    // open accounts only; closed accounts drop out of the index
     public List<Account> listAccountsForCustomer(String customerId) {
-        return accounts.values().stream()
-                .filter(a -> a.getCustomerId().equals(customerId))
-                .collect(Collectors.toList());
+        long start = metrics.start(BankMetrics.Op.LIST_ACCOUNTS);
+        try {
+            return repository.openAccountsOf(customerId);
+        } finally {
+            metrics.finish(BankMetrics.Op.LIST_ACCOUNTS, start);
+        }
     }
 
-    // deposit
+    public void closeAccount(String accountId) throws EntityNotFoundException {
+        long start = metrics.start(BankMetrics.Op.CLOSE_ACCOUNT);
+        try {
+            doCloseAccount(accountId);
+        } catch (Exception e) {
+            metrics.failed(BankMetrics.Op.CLOSE_ACCOUNT, e);
+            throw e;
+        } finally {
+            metrics.finish(BankMetrics.Op.CLOSE_ACCOUNT, start);
+        }
+    }
+
+    private void doCloseAccount(String accountId) throws EntityNotFoundException {
+        Account acc = getAccount(accountId);
+        lockCheckpoint();
+        accountLocks.lock(accountId);
+        try {
+            Journal j = journal;
+            if (j != null) j.appendClose(accountId);
+            markClosed(lockedAccount(acc));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Journal write failed", e);
+        } finally {
+            accountLocks.unlock(accountId);
+            checkpointLock.readLock().unlock();
+        }
+        awaitDurable();
+    }
+
+    // ----- Money operations -----
+    // the double overloads are adapters; amounts are rounded to the nearest minor unit (see Money)
     public Transaction deposit(String accountId, double amount, String note) throws EntityNotFoundException {
+        return depositMinor(accountId, Money.ofDouble(amount), note);
+    }
+
+    public Transaction withdraw(String accountId, double amount, String note) throws EntityNotFoundException, InsufficientFundsException {
+        return withdrawMinor(accountId, Money.ofDouble(amount), note);
+    }
+
+    public Transaction transfer(String fromAccountId, String toAccountId, double amount, String note) throws EntityNotFoundException, InsufficientFundsException {
+        return transferMinor(fromAccountId, toAccountId, Money.ofDouble(amount), note);
+    }
+
+    // deposit
+    public Transaction depositMinor(String accountId, long amount, String note) throws EntityNotFoundException {
+        long start = metrics.start(BankMetrics.Op.DEPOSIT);
+        try {
+            return doDeposit(accountId, amount, note);
+        } catch (Exception e) {
+            metrics.failed(BankMetrics.Op.DEPOSIT, e);
+            throw e;
+        } finally {
+            metrics.finish(BankMetrics.Op.DEPOSIT, start);
+        }
+    }
+
+    private Transaction doDeposit(String accountId, long amount, String note) throws EntityNotFoundException {
         Account acc = getAccount(accountId);
-        acc.deposit(amount);
-        Transaction t = recordTransaction(Transaction.Type.DEPOSIT, null, accountId, amount, note);
+        Sequencer s = sequencer;
+        if (s != null) {
+            if (amount <= 0) throw new IllegalArgumentException("Deposit amount must be > 0");
+            BatchResult.Item item = s.submit(Operation.ofMinor(Transaction.Type.DEPOSIT, null, accountId, amount, note));
+            if (item != null) {
+                try {
+                    return sequenced(item);
+                } catch (InsufficientFundsException e) {
+                    throw new IllegalStateException("Deposit failed for lack of funds", e); // never happens
+                }
+            }
+        }
+        Transaction t;
+        lockCheckpoint();
+        accountLocks.lock(accountId);
+        try {
+            Account to = lockedAccount(acc);
+            t = recordTransaction(Transaction.Type.DEPOSIT, null, 0, to, depositedBalance(to, amount), amount, note);
+        } finally {
+            accountLocks.unlock(accountId);
+            checkpointLock.readLock().unlock();
+        }
+        awaitDurable();
         return t;
     }
 
     // withdraw
-    public Transaction withdraw(String accountId, double amount, String note) throws EntityNotFoundException, InsufficientFundsException {
+    public Transaction withdrawMinor(String accountId, long amount, String note) throws EntityNotFoundException, InsufficientFundsException {
+        long start = metrics.start(BankMetrics.Op.WITHDRAW);
+        try {
+            return doWithdraw(accountId, amount, note);
+        } catch (Exception e) {
+            metrics.failed(BankMetrics.Op.WITHDRAW, e);
+            throw e;
+        } finally {
+            metrics.finish(BankMetrics.Op.WITHDRAW, start);
+        }
+    }
+
+    private Transaction doWithdraw(String accountId, long amount, String note) throws EntityNotFoundException, InsufficientFundsException {
         Account acc = getAccount(accountId);
-        acc.withdraw(amount);
-        Transaction t = recordTransaction(Transaction.Type.WITHDRAWAL, accountId, null, amount, note);
+        Sequencer s = sequencer;
+        if (s != null) {
+            if (amount <= 0) throw new IllegalArgumentException("Withdraw amount must be > 0");
+            BatchResult.Item item = s.submit(Operation.ofMinor(Transaction.Type.WITHDRAWAL, accountId, null, amount, note));
+            if (item != null) return sequenced(item);
+        }
+        Transaction t;
+        lockCheckpoint();
+        accountLocks.lock(accountId);
+        try {
+            Account from = lockedAccount(acc);
+            t = recordTransaction(Transaction.Type.WITHDRAWAL, from, withdrawnBalance(from, amount), null, 0, amount, note);
+        } finally {
+            accountLocks.unlock(accountId);
+            checkpointLock.readLock().unlock();
+        }
+        awaitDurable();
         return t;
     }
 
-    // transfer
-    public Transaction transfer(String fromAccountId, String toAccountId, double amount, String note) throws EntityNotFoundException, InsufficientFundsException {
+    // transfer: both accounts are locked for the whole move, so no one observes money in flight
+    public Transaction transferMinor(String fromAccountId, String toAccountId, long amount, String note) throws EntityNotFoundException, InsufficientFundsException {
+        long start = metrics.start(BankMetrics.Op.TRANSFER);
+        try {
+            return doTransfer(fromAccountId, toAccountId, amount, note);
+        } catch (Exception e) {
+            metrics.failed(BankMetrics.Op.TRANSFER, e);
+            throw e;
+        } finally {
+            metrics.finish(BankMetrics.Op.TRANSFER, start);
+        }
+    }
+
+    private Transaction doTransfer(String fromAccountId, String toAccountId, long amount, String note) throws EntityNotFoundException, InsufficientFundsException {
         if (fromAccountId.equals(toAccountId)) throw new IllegalArgumentException("Source and destination cannot be same");
+        if (amount <= 0) throw new IllegalArgumentException("Transfer amount must be > 0");
         Account from = getAccount(fromAccountId);
         Account to = getAccount(toAccountId);
+        Sequencer s = sequencer;
+        if (s != null) {
+            BatchResult.Item item = s.submit(Operation.ofMinor(Transaction.Type.TRANSFER, fromAccountId, toAccountId, amount, note));
+            if (item != null) return sequenced(item);
+        }
 
-        // perform in order: withdraw then deposit
-        from.withdraw(amount);
-        to.deposit(amount);
-
-        Transaction t = recordTransaction(Transaction.Type.TRANSFER, fromAccountId, toAccountId, amount, note);
+        Transaction t;
+        lockCheckpoint();
+        accountLocks.lockPair(fromAccountId, toAccountId);
+        try {
+            from = lockedAccount(from);
+            to = lockedAccount(to);
+            long fromBalance = withdrawnBalance(from, amount);
+            long toBalance = depositedBalance(to, amount);
+            // one journal record carries both sides, so a crash can never split the transfer
+            t = recordTransaction(Transaction.Type.TRANSFER, from, fromBalance, to, toBalance, amount, note);
+        } finally {
+            accountLocks.unlockPair(fromAccountId, toAccountId);
+            checkpointLock.readLock().unlock();
+        }
+        awaitDurable();
         return t;
     }
 
-    // record transaction
-    private Transaction recordTransaction(Transaction.Type type, String from, String to, double amount, String note) {
-        Transaction t = new Transaction(type, from, to, amount, note == null ? "" : note);
-        transactions.add(t);
+    // ----- Batch operations -----
+    public BatchResult applyBatch(List<Operation> operations) {
+        return applyBatch(operations, BatchMode.ALL_OR_NOTHING);
+    }
+
+    /**
+     * Applies a batch of deposits, withdrawals and transfers in order. The whole batch is
+     * validated first, each affected account is looked up and locked once, and all
+     * resulting transactions are recorded together with one journal write and one sync.
+     * Balances only change once every operation has been checked, so an aborted batch
+     * never moves money, not even briefly.
+     */
+    public BatchResult applyBatch(List<Operation> operations, BatchMode mode) {
+        long start = metrics.start(BankMetrics.Op.BATCH);
+        try {
+            Sequencer s = sequencer;
+            BatchResult result = s == null ? null : s.submit(operations, mode);
+            if (result == null) return doApplyBatch(operations, mode);
+            awaitDurable();
+            return result;
+        } catch (Exception e) {
+            metrics.failed(BankMetrics.Op.BATCH, e);
+            throw e;
+        } finally {
+            metrics.finish(BankMetrics.Op.BATCH, start);
+        }
+    }
+
+    private BatchResult doApplyBatch(List<Operation> operations, BatchMode mode) {
+        BatchResult result = applyBatchLocked(operations, mode);
+        awaitDurable();
+        return result;
+    }
+
+    // applies the batch without waiting for durability; throws only before any balance,
+    // journal or ledger change, so a batch that throws can safely be run again
+    private BatchResult applyBatchLocked(List<Operation> operations, BatchMode mode) {
+        int n = operations.size();
+        BatchResult.Item[] items = new BatchResult.Item[n];
+        List<String> involved = new ArrayList<>(2 * n);
+        Account[] froms = new Account[n];
+        Account[] tos = new Account[n];
+        boolean invalid = false;
+        for (int i = 0; i < n; i++) {
+            Exception error = validate(operations.get(i), involved, froms, tos, i);
+            if (error != null) {
+                items[i] = new BatchResult.Item(i, error);
+                invalid = true;
+            }
+        }
+        if (invalid && mode == BatchMode.ALL_OR_NOTHING) return abort(items);
+
+        List<Transaction> batch = new ArrayList<>(n);
+        long[] fromBalances = new long[n];
+        long[] toBalances = new long[n];
+        int[] batchIndex = new int[n];
+        lockCheckpoint();
+        int[] held = accountLocks.lockAll(involved);
+        try {
+            for (int i = 0; i < n; i++) {
+                if (froms[i] != null) froms[i] = lockedAccount(froms[i]);
+                if (tos[i] != null) tos[i] = lockedAccount(tos[i]);
+            }
+            // every operation is first run against scratch balances, so no account changes
+            // until the batch is known to apply and an abort has nothing to put back
+            Map<String, Long> scratch = new HashMap<>();
+            for (int i = 0; i < n; i++) {
+                if (items[i] != null) continue;
+                Operation op = operations.get(i);
+                Account from = froms[i];
+                Account to = tos[i];
+                long amount = op.getAmountMinor();
+                long fromAfter = 0;
+                long toAfter = 0;
+                try {
+                    if (from != null) {
+                        long balance = scratch.getOrDefault(from.getAccountId(), from.getBalanceMinor());
+                        from.checkWithdrawMinor(balance, amount);
+                        fromAfter = balance - amount;
+                    }
+                    if (to != null) toAfter = Money.add(scratch.getOrDefault(to.getAccountId(), to.getBalanceMinor()), amount);
+                } catch (InsufficientFundsException e) {
+                    items[i] = new BatchResult.Item(i, e);
+                    if (mode == BatchMode.ALL_OR_NOTHING) return abort(items);
+                    continue;
+                } catch (ArithmeticException e) {
+                    items[i] = new BatchResult.Item(i, new ArithmeticException("Balance would overflow"));
+                    if (mode == BatchMode.ALL_OR_NOTHING) return abort(items);
+                    continue;
+                }
+                if (from != null) scratch.put(from.getAccountId(), fromAfter);
+                if (to != null) scratch.put(to.getAccountId(), toAfter);
+                int k = batch.size();
+                batch.add(Transaction.ofMinor(op.getType(), op.getFromAccountId(), op.getToAccountId(), amount,
+                        op.getNote() == null ? "" : op.getNote()));
+                fromBalances[k] = fromAfter;
+                toBalances[k] = toAfter;
+                batchIndex[k] = i;
+            }
+            Journal j = journal;
+            if (j != null && !batch.isEmpty()) j.appendTransactions(batch, fromBalances, toBalances);
+            for (int k = 0; k < batch.size(); k++) {
+                int i = batchIndex[k];
+                if (froms[i] != null) restoreBalance(froms[i], fromBalances[k]);
+                if (tos[i] != null) restoreBalance(tos[i], toBalances[k]);
+            }
+            long first = ledger.appendAll(batch);
+            for (int k = 0; k < batch.size(); k++) {
+                Transaction t = batch.get(k);
+                transactionIndex.add(t, first + k);
+                aggregates.add(t);
+                items[batchIndex[k]] = new BatchResult.Item(batchIndex[k], t, first + k);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Journal write failed", e);
+        } finally {
+            accountLocks.unlockAll(held);
+            checkpointLock.readLock().unlock();
+        }
+        return new BatchResult(Arrays.asList(items));
+    }
+
+    // returns why operation i cannot run, or null after resolving its accounts into froms/tos
+    private Exception validate(Operation op, List<String> involved, Account[] froms, Account[] tos, int i) {
+        if (op == null) return new IllegalArgumentException("Operation is null");
+        if (op.getAmountMinor() <= 0) return new IllegalArgumentException("Amount must be > 0");
+        if (op.getType() == Transaction.Type.TRANSFER && op.getFromAccountId().equals(op.getToAccountId())) {
+            return new IllegalArgumentException("Source and destination cannot be same");
+        }
+        String from = op.getFromAccountId();
+        String to = op.getToAccountId();
+        if (from != null && (froms[i] = repository.getAccount(from)) == null) return new EntityNotFoundException("Account not found: " + from);
+        if (to != null && (tos[i] = repository.getAccount(to)) == null) return new EntityNotFoundException("Account not found: " + to);
+        if (from != null) involved.add(from);
+        if (to != null) involved.add(to);
+        return null;
+    }
+
+    private static BatchResult abort(BatchResult.Item[] items) {
+        for (int i = 0; i < items.length; i++) {
+            if (items[i] == null || items[i].getStatus() == BatchResult.Status.APPLIED) {
+                items[i] = new BatchResult.Item(i, BatchResult.Status.ABORTED, null, null);
+            }
+        }
+        return new BatchResult(Arrays.asList(items));
+    }
+
+    // the outcome of a single operation run by the sequencer, once it is durable; a failure
+    // is thrown as the same exception the call would have thrown without the sequencer
+    private Transaction sequenced(BatchResult.Item item) throws EntityNotFoundException, InsufficientFundsException {
+        if (item.getStatus() == BatchResult.Status.APPLIED) {
+            awaitDurable();
+            return item.getTransaction();
+        }
+        Exception cause = item.getCause();
+        if (cause instanceof InsufficientFundsException) throw new InsufficientFundsException(item.getError());
+        if (cause instanceof EntityNotFoundException) throw new EntityNotFoundException(item.getError());
+        if (cause instanceof ArithmeticException) throw new ArithmeticException(item.getError());
+        throw new IllegalArgumentException(item.getError());
+    }
+
+    // ----- Sequenced mode -----
+
+    /**
+     * Sends every deposit, withdrawal, transfer and batch through one writer thread. Callers
+     * publish into a lock-free ring and wait; the writer applies requests strictly in
+     * the order they were sequenced, so the ledger position of each transaction is its
+     * global sequence number ({@link BatchResult.Item#getSequence}), and it merges whatever
+     * has queued up into one batch with a single lock pass and journal write; the callers
+     * then wait for durability themselves, sharing a group commit. Under heavy contention
+     * on a few accounts this replaces lock hand-offs between callers with one thread that
+     * always holds the locks it needs. Other mutations keep running on their callers and still exclude the
+     * writer through the account locks.
+     */
+    public synchronized void startSequencer() {
+        if (sequencer != null) throw new IllegalStateException("Sequencer already running");
+        sequencer = new Sequencer(Sequencer.DEFAULT_CAPACITY, this::applyBatchLocked);
+    }
+
+    // back to applying operations on the calling threads, once everything queued is applied
+    public synchronized void stopSequencer() throws InterruptedException {
+        Sequencer s = sequencer;
+        if (s == null) return;
+        sequencer = null;
+        s.close();
+    }
+
+    public boolean isSequenced() {
+        return sequencer != null;
+    }
+
+    // ----- Statements -----
+
+    /**
+     * Counts, per-type credit and debit totals and min/max balance of one account for a
+     * day, read from rollups kept up to date as transactions are recorded.
+     */
+    public PeriodSummary dailySummary(String accountId, LocalDate day) throws EntityNotFoundException {
+        getAccount(accountId);
+        accountLocks.lock(accountId); // the rollups are guarded by the account's stripe
+        try {
+            return aggregates.day(accountId, day);
+        } finally {
+            accountLocks.unlock(accountId);
+        }
+    }
+
+    public PeriodSummary monthlySummary(String accountId, YearMonth month) throws EntityNotFoundException {
+        getAccount(accountId);
+        accountLocks.lock(accountId);
+        try {
+            return aggregates.month(accountId, month);
+        } finally {
+            accountLocks.unlock(accountId);
+        }
+    }
+
+    /**
+     * Recomputes every rollup from the ledger. Writers wait while it runs; readers see the
+     * previous rollups until the new ones are complete.
+     */
+    public void rebuildAggregates() {
+        checkpointLock.writeLock().lock();
+        try {
+            AccountAggregates fresh = new AccountAggregates();
+            LedgerStore store = ledger;
+            for (long i = 0, n = store.size(); i < n; i++) fresh.add(store.get(i));
+            aggregates = fresh;
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+    }
+
+    // ----- Point-in-time balances -----
+
+    /**
+     * An account's balance as of {@code instant}: its transactions stamped up to then,
+     * starting from the nearest per-account checkpoint, so at most a few dozen are read
+     * back from the ledger however long the history is. Like the statement rollups this is
+     * the balance the ledger implies.
+     */
+    public long balanceAtMinor(String accountId, LocalDateTime instant) throws EntityNotFoundException {
+        long start = metrics.start(BankMetrics.Op.BALANCE_AT);
+        try {
+            getAccount(accountId);
+            return transactionIndex.balanceAt(accountId, instant);
+        } catch (Exception e) {
+            metrics.failed(BankMetrics.Op.BALANCE_AT, e);
+            throw e;
+        } finally {
+            metrics.finish(BankMetrics.Op.BALANCE_AT, start);
+        }
+    }
+
+    public double balanceAt(String accountId, LocalDateTime instant) throws EntityNotFoundException {
+        return Money.toDouble(balanceAtMinor(accountId, instant));
+    }
+
+    // every account opened by instant, with its balance then in minor units
+    public Map<String, Long> balancesAtMinor(LocalDateTime instant) {
+        long start = metrics.start(BankMetrics.Op.BALANCES_AT);
+        try {
+            TransactionIndex index = transactionIndex;
+            Map<String, Long> balances = new HashMap<>();
+            for (Account acc : repository.accounts()) {
+                if (acc.getCreatedAt() != null && acc.getCreatedAt().isAfter(instant)) continue;
+                balances.put(acc.getAccountId(), index.balanceAt(acc.getAccountId(), instant));
+            }
+            return balances;
+        } finally {
+            metrics.finish(BankMetrics.Op.BALANCES_AT, start);
+        }
+    }
+
+    // ----- Interest -----
+    public int applyMonthlyInterest(int months) {
+        return applyMonthlyInterest(months, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Credits {@code months} of interest to every open savings account and records an
+     * INTEREST transaction for each one credited. Accounts are grouped by lock stripe and
+     * the stripes are split across {@code pool}; each task locks its stripes, credits their
+     * accounts and records the results with one ledger append and one journal write.
+     * Traffic on other stripes is not blocked. Returns the number of accounts credited.
+     */
+    public int applyMonthlyInterest(int months, ForkJoinPool pool) {
+        long start = metrics.start(BankMetrics.Op.INTEREST);
+        try {
+            return doApplyMonthlyInterest(months, pool);
+        } catch (Exception e) {
+            metrics.failed(BankMetrics.Op.INTEREST, e);
+            throw e;
+        } finally {
+            metrics.finish(BankMetrics.Op.INTEREST, start);
+        }
+    }
+
+    private int doApplyMonthlyInterest(int months, ForkJoinPool pool) {
+        if (months <= 0) throw new IllegalArgumentException("Months must be > 0");
+        int stripes = accountLocks.stripeCount();
+        int[] counts = new int[stripes];
+        List<SavingsAccount> savings = new ArrayList<>();
+        for (Account acc : repository.accounts()) {
+            if (acc instanceof SavingsAccount && acc.isActive()) {
+                savings.add((SavingsAccount) acc);
+                counts[accountLocks.stripeOf(acc.getAccountId())]++;
+            }
+        }
+        // bucket the accounts by stripe: stripe s owns byStripe[start[s] .. start[s + 1])
+        int[] start = new int[stripes + 1];
+        for (int s = 0; s < stripes; s++) start[s + 1] = start[s] + counts[s];
+        SavingsAccount[] byStripe = new SavingsAccount[savings.size()];
+        int[] fill = Arrays.copyOf(start, stripes);
+        for (SavingsAccount acc : savings) byStripe[fill[accountLocks.stripeOf(acc.getAccountId())]++] = acc;
+
+        int credited = pool.invoke(new InterestTask(byStripe, start, 0, stripes, months));
+        awaitDurable();
+        return credited;
+    }
+
+    private final class InterestTask extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        private final SavingsAccount[] byStripe;
+        private final int[] start;
+        private final int lo;
+        private final int hi;
+        private final int months;
+
+        InterestTask(SavingsAccount[] byStripe, int[] start, int lo, int hi, int months) {
+            this.byStripe = byStripe;
+            this.start = start;
+            this.lo = lo;
+            this.hi = hi;
+            this.months = months;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (hi - lo > 1 && start[hi] - start[lo] > INTEREST_LEAF_ACCOUNTS) {
+                int mid = (lo + hi) >>> 1;
+                InterestTask left = new InterestTask(byStripe, start, lo, mid, months);
+                left.fork();
+                int right = new InterestTask(byStripe, start, mid, hi, months).compute();
+                return left.join() + right;
+            }
+            return creditInterest(byStripe, start[lo], start[hi], lo, hi, months);
+        }
+    }
+
+    // credits byStripe[from, to), which belong to stripes [lo, hi), while holding those stripes
+    private int creditInterest(SavingsAccount[] byStripe, int from, int to, int lo, int hi, int months) {
+        if (from == to) return 0;
+        String note = "Interest for " + months + (months == 1 ? " month" : " months");
+        List<Transaction> batch = new ArrayList<>(to - from);
+        long[] balances = new long[to - from];
+        SavingsAccount[] credited = new SavingsAccount[to - from];
+        lockCheckpoint();
+        accountLocks.lockRange(lo, hi);
+        try {
+            for (int i = from; i < to; i++) {
+                SavingsAccount acc = (SavingsAccount) lockedAccount(byStripe[i]);
+                if (!acc.isActive()) continue; // closed since the run started
+                long interest = acc.interestForMonthsMinor(months);
+                if (interest <= 0) continue;
+                balances[batch.size()] = Money.add(acc.getBalanceMinor(), interest);
+                credited[batch.size()] = acc;
+                batch.add(Transaction.ofMinor(Transaction.Type.INTEREST, null, acc.getAccountId(), interest, note));
+            }
+            if (batch.isEmpty()) return 0;
+            // journaled before any balance changes, as for every other operation
+            Journal j = journal;
+            if (j != null) j.appendTransactions(batch, new long[batch.size()], balances);
+            for (int k = 0; k < batch.size(); k++) restoreBalance(credited[k], balances[k]);
+            long first = ledger.appendAll(batch);
+            for (int k = 0; k < batch.size(); k++) {
+                transactionIndex.add(batch.get(k), first + k);
+                aggregates.add(batch.get(k));
+            }
+            return batch.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Journal write failed", e);
+        } finally {
+            accountLocks.unlockRange(lo, hi);
+            checkpointLock.readLock().unlock();
+        }
+    }
+
+    // journals a transaction, then sets the balances worked out for it (write-ahead, so a
+    // failed journal write leaves every account as it was); callers hold the locks of the
+    // accounts involved
+    private Transaction recordTransaction(Transaction.Type type, Account from, long fromBalance, Account to, long toBalance, long amount, String note) {
+        Transaction t = Transaction.ofMinor(type, from == null ? null : from.getAccountId(),
+                to == null ? null : to.getAccountId(), amount, note == null ? "" : note);
+        Journal j = journal;
+        if (j != null) {
+            try {
+                j.appendTransaction(t, fromBalance, toBalance);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Journal write failed", e);
+            }
+        }
+        if (from != null) restoreBalance(from, fromBalance);
+        if (to != null) restoreBalance(to, toBalance);
+        appendToLedger(t);
         return t;
     }
 
+    // the balance of acc after depositing amount; changes nothing
+    private static long depositedBalance(Account acc, long amount) {
+        if (amount <= 0) throw new IllegalArgumentException("Deposit amount must be > 0");
+        return Money.add(acc.getBalanceMinor(), amount);
+    }
+
+    // the balance of acc after withdrawing amount; changes nothing
+    private static long withdrawnBalance(Account acc, long amount) throws InsufficientFundsException {
+        long balance = acc.getBalanceMinor();
+        acc.checkWithdrawMinor(balance, amount);
+        return balance - amount;
+    }
+
+    private void appendToLedger(Transaction t) {
+        transactionIndex.add(t, ledger.append(t));
+        aggregates.add(t);
+    }
+
     public List<Transaction> listTransactionsForAccount(String accountId) {
-        return transactions.stream()
-                .filter(t -> accountId.equals(t.getFromAccountId()) || accountId.equals(t.getToAccountId()))
-                .collect(Collectors.toList());
+        long start = metrics.start(BankMetrics.Op.LIST_TRANSACTIONS);
+        try {
+            return transactionIndex.forAccount(accountId);
+        } finally {
+            metrics.finish(BankMetrics.Op.LIST_TRANSACTIONS, start);
+        }
+    }
+
+    // page through an account's history in recording order
+    public List<Transaction> listTransactionsForAccount(String accountId, int offset, int limit) {
+        if (offset < 0 || limit < 0) throw new IllegalArgumentException("Offset and limit must be >= 0");
+        long start = metrics.start(BankMetrics.Op.LIST_TRANSACTIONS);
+        try {
+            return transactionIndex.forAccount(accountId, offset, limit);
+        } finally {
+            metrics.finish(BankMetrics.Op.LIST_TRANSACTIONS, start);
+        }
+    }
+
+    // transactions in [from, to); either bound may be null
+    public List<Transaction> listTransactionsForAccount(String accountId, LocalDateTime from, LocalDateTime to) {
+        long start = metrics.start(BankMetrics.Op.LIST_TRANSACTIONS);
+        try {
+            return transactionIndex.forAccount(accountId, from, to);
+        } finally {
+            metrics.finish(BankMetrics.Op.LIST_TRANSACTIONS, start);
+        }
+    }
+
+    public int countTransactionsForAccount(String accountId) {
+        return transactionIndex.count(accountId);
+    }
+
+    /**
+     * Transactions matching {@code query} in recording order. The stream reads the ledger
+     * lazily and copies nothing up front, so memory stays flat however long the history is;
+     * it covers what had been recorded when it was created.
+     */
+    public Stream<Transaction> streamTransactions(TransactionQuery query) {
+        return transactionIndex.stream(query, 0);
+    }
+
+    // cursor-based paging: start at 0 and pass back TransactionPage.getNextCursor()
+    public TransactionPage queryTransactions(TransactionQuery query, long cursor, int limit) {
+        if (cursor < 0 || limit <= 0) throw new IllegalArgumentException("Cursor must be >= 0 and limit > 0");
+        long start = metrics.start(BankMetrics.Op.LIST_TRANSACTIONS);
+        try {
+            return transactionIndex.page(query, cursor, limit);
+        } finally {
+            metrics.finish(BankMetrics.Op.LIST_TRANSACTIONS, start);
+        }
     }
 
+    // copies the whole ledger; prefer streamTransactions(TransactionQuery.all()) on large ledgers
     public List<Transaction> listAllTransactions() {
-        return new ArrayList<>(transactions);
+        LedgerStore store = ledger;
+        long size = store.size();
+        List<Transaction> all = new ArrayList<>((int) Math.min(size, Integer.MAX_VALUE - 8));
+        for (long i = 0; i < size; i++) all.add(store.get(i));
+        return all;
+    }
+
+    /**
+     * Moves the ledger off-heap into memory-mapped column files under {@code directory}.
+     * Existing transactions are copied over while writers wait. The column files are
+     * working storage only; save, snapshot or journal the bank as usual for durability.
+     */
+    public void useMappedLedger(String directory) throws IOException {
+        checkpointLock.writeLock().lock();
+        try {
+            if (!(repository instanceof InMemoryRepository)) throw new IllegalStateException("The ledger is kept in the database");
+            LedgerStore old = ledger;
+            LedgerStore store = new MappedLedgerStore(Paths.get(directory));
+            TransactionIndex index = new TransactionIndex(store);
+            for (long i = 0, n = old.size(); i < n; i++) {
+                Transaction t = old.get(i);
+                index.add(t, store.append(t));
+            }
+            ledger = store;
+            transactionIndex = index;
+            old.close();
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
     }
 
     // persistence: save/load the entire bank to a file
     public void saveToFile(String path) throws IOException {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(path))) {
-            oos.writeObject(this);
+        long start = metrics.start(BankMetrics.Op.SAVE);
+        try {
+            doSaveToFile(path);
+        } catch (Exception e) {
+            metrics.failed(BankMetrics.Op.SAVE, e);
+            throw e;
+        } finally {
+            metrics.finish(BankMetrics.Op.SAVE, start);
         }
     }
 
+    private void doSaveToFile(String path) throws IOException {
+        checkpointLock.writeLock().lock();
+        try {
+            Journal j = journal;
+            if (j != null) journalSeq = j.lastSeq();
+            Path target = Paths.get(path);
+            Path tmp = Paths.get(path + ".tmp");
+            try (ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(tmp.toFile())))) {
+                oos.writeObject(this);
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (j != null && j.getPath().equals(journalPath(path))) j.truncateThrough(journalSeq, j.endOffset());
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes a compact binary snapshot to {@code path} without stopping writers.
+     * Mutations pause only while the journal position and ledger length are captured.
+     * Balances may move on while the image is written; the journal records after the
+     * captured position repair that on load, and every record before it is dropped
+     * from {@code path + ".journal"}. When that is not the bank's open journal (or there
+     * is none), writers wait for the whole write so the image is consistent. The image holds the ledger as well as balances
+     * and customers, since the journal it truncates is the only other copy of history.
+     */
+    public void writeSnapshot(String path) throws IOException {
+        long start = metrics.start(BankMetrics.Op.SNAPSHOT);
+        try {
+            doWriteSnapshot(path);
+        } catch (Exception e) {
+            metrics.failed(BankMetrics.Op.SNAPSHOT, e);
+            throw e;
+        } finally {
+            metrics.finish(BankMetrics.Op.SNAPSHOT, start);
+        }
+    }
+
+    private void doWriteSnapshot(String path) throws IOException {
+        synchronized (snapshotLock) {
+            Journal j;
+            long seq;
+            long offset = 0;
+            long count;
+            boolean ownJournal;
+            ReentrantReadWriteLock.WriteLock gate = checkpointLock.writeLock();
+            gate.lock();
+            try {
+                j = journal;
+                ownJournal = j != null && j.getPath().equals(journalPath(path));
+                seq = j != null ? j.lastSeq() : journalSeq;
+                if (j != null) offset = j.endOffset();
+                count = ledger.size();
+                // only the journal next to path is replayed over this image on load
+                if (ownJournal) {
+                    gate.unlock();
+                    gate = null;
+                }
+                Snapshot.write(Paths.get(path), seq, repository.customers(), repository.accounts(), ledger, count);
+            } finally {
+                if (gate != null) gate.unlock();
+            }
+            if (ownJournal) j.truncateThrough(seq, offset);
+        }
+    }
+
+    /**
+     * Writes a snapshot to {@code path} every {@code intervalSeconds} on a background thread.
+     */
+    public synchronized void startSnapshots(String path, long intervalSeconds) {
+        if (snapshotScheduler != null) throw new IllegalStateException("Snapshots already running");
+        snapshotScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "bank-snapshot");
+            t.setDaemon(true);
+            return t;
+        });
+        snapshotScheduler.scheduleWithFixedDelay(() -> {
+            try {
+                writeSnapshot(path);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Snapshot failed: " + e.getMessage());
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public synchronized void stopSnapshots() {
+        if (snapshotScheduler == null) return;
+        snapshotScheduler.shutdown();
+        snapshotScheduler = null;
+    }
+
+    /**
+     * Loads the bank saved at {@code path}, either a snapshot or a serialized bank, and
+     * replays the journal next to it, if any. The journal is not reattached; call
+     * {@link #enableJournal} to keep appending.
+     */
     public static Bank loadFromFile(String path) throws IOException, ClassNotFoundException {
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(path))) {
-            Object obj = ois.readObject();
-            if (obj instanceof Bank) return (Bank) obj;
-            throw new IOException("Invalid file content");
+        long start = System.nanoTime();
+        Bank bank = load(path);
+        bank.metrics.finish(BankMetrics.Op.LOAD, start); // a fresh bank's metrics are enabled
+        return bank;
+    }
+
+    private static Bank load(String path) throws IOException, ClassNotFoundException {
+        Path file = Paths.get(path);
+        Path journalPath = journalPath(path);
+        Bank bank;
+        if (!Files.exists(file) && Files.exists(journalPath)) {
+            bank = new Bank(); // crashed before the first save: the journal is all there is
+        } else if (Files.exists(file) && Snapshot.isSnapshot(file)) {
+            bank = new Bank();
+            bank.journalSeq = Snapshot.read(file, bank.snapshotSink());
+        } else {
+            try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(new FileInputStream(path)))) {
+                Object obj = ois.readObject();
+                if (!(obj instanceof Bank)) throw new IOException("Invalid file content");
+                bank = (Bank) obj;
+            }
+        }
+        if (Files.exists(journalPath)) bank.journalSeq = Journal.replay(journalPath, bank.journalSeq, bank.replayer());
+        return bank;
+    }
+
+    /**
+     * Starts journaling every mutation to {@code path + ".journal"}. The bank is saved
+     * to {@code path} first, so the file plus the journal always describe the whole bank.
+     * With group commit, concurrent callers share fsyncs; otherwise each mutation forces its own.
+     */
+    public void enableJournal(String path, boolean groupCommit) throws IOException {
+        checkpointLock.writeLock().lock();
+        try {
+            if (journal != null) throw new IllegalStateException("Journal already enabled: " + journal.getPath());
+            journal = Journal.open(journalPath(path), groupCommit, journalSeq);
+            saveToFile(path);
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+    }
+
+    public void closeJournal() throws IOException {
+        checkpointLock.writeLock().lock();
+        try {
+            Journal j = journal;
+            journal = null;
+            if (j != null) j.close();
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Opens a bank over the database at {@code jdbcUrl}, creating the tables when missing.
+     * Up to {@code cacheCapacity} customers and as many accounts stay in memory; the rest
+     * are loaded on demand. Transactions and balances are written in batches between
+     * operations; {@link #flushRepository} forces out the rest and {@link #closeRepository}
+     * ends the session.
+     */
+    public static Bank openJdbc(String jdbcUrl, int cacheCapacity) throws IOException {
+        Bank bank = new Bank();
+        JdbcRepository repo;
+        try {
+            repo = new JdbcRepository(jdbcUrl, cacheCapacity, JdbcRepository.DEFAULT_BATCH, bank.accountLocks);
+        } catch (SQLException e) {
+            throw new IOException("Cannot open database: " + e.getMessage(), e);
+        }
+        bank.repository = repo;
+        for (Customer c : repo.customers()) bank.loadCustomer(c);
+        for (Account a : repo.accounts()) Ids.observe(a.getAccountId());
+        bank.ledger = repo.ledger();
+        TransactionIndex index = new TransactionIndex(bank.ledger);
+        AccountAggregates rollups = new AccountAggregates();
+        long[] position = {0};
+        repo.scanLedger(t -> {
+            Ids.observe(t.getTransactionId());
+            index.add(t, position[0]++);
+            rollups.add(t);
+        });
+        bank.transactionIndex = index;
+        bank.aggregates = rollups;
+        return bank;
+    }
+
+    // writes buffered repository changes; writers pause so the commit holds whole operations
+    public void flushRepository() {
+        long start = metrics.start(BankMetrics.Op.FLUSH);
+        try {
+            doFlushRepository();
+        } catch (Exception e) {
+            metrics.failed(BankMetrics.Op.FLUSH, e);
+            throw e;
+        } finally {
+            metrics.finish(BankMetrics.Op.FLUSH, start);
+        }
+    }
+
+    private void doFlushRepository() {
+        checkpointLock.writeLock().lock();
+        try {
+            repository.flush();
+        } finally {
+            checkpointLock.writeLock().unlock();
         }
     }
 
-    // helper
+    public void closeRepository() throws IOException {
+        checkpointLock.writeLock().lock();
+        try {
+            repository.close();
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+    }
+
+    private static Path journalPath(String path) {
+        return Paths.get(path + ".journal");
+    }
+
+    private Snapshot.Sink snapshotSink() {
+        return new Snapshot.Sink() {
+            @Override
+            public void customer(Customer customer) {
+                repository.putCustomer(customer);
+                loadCustomer(customer);
+            }
+
+            @Override
+            public void account(Account account) {
+                Ids.observe(account.getAccountId());
+                repository.putAccount(account);
+            }
+
+            @Override
+            public void transaction(Transaction t) {
+                Ids.observe(t.getTransactionId());
+                appendToLedger(t);
+            }
+        };
+    }
+
+    private Journal.Replayer replayer() {
+        return new Journal.Replayer() {
+            // a customer seen before is a later contact change
+            @Override
+            public void customer(Customer customer) {
+                Customer known = repository.getCustomer(customer.getCustomerId());
+                if (known != null) {
+                    changeContact(known, customer.getEmail(), customer.getPhone());
+                    return;
+                }
+                repository.putCustomer(customer);
+                loadCustomer(customer);
+            }
+
+            @Override
+            public void account(Account account) {
+                Ids.observe(account.getAccountId());
+                if (repository.getAccount(account.getAccountId()) == null) registerAccount(account);
+            }
+
+            @Override
+            public void close(String accountId) {
+                Account acc = repository.getAccount(accountId);
+                if (acc != null) markClosed(acc);
+            }
+
+            @Override
+            public void transaction(Transaction t, long fromBalance, long toBalance) {
+                Ids.observe(t.getTransactionId());
+                if (t.getFromAccountId() != null) restoreBalance(t.getFromAccountId(), fromBalance);
+                if (t.getToAccountId() != null) restoreBalance(t.getToAccountId(), toBalance);
+                appendToLedger(t);
+            }
+        };
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        InMemoryRepository heap = InMemoryRepository.of(repository);
+        fields.put("customers", heap.customerMap());
+        fields.put("accounts", heap.accountMap());
+        fields.put("transactions", listAllTransactions());
+        fields.put("accountsByCustomer", heap.accountsByCustomer());
+        fields.put("journalSeq", journalSeq);
+        out.writeFields();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        repository = new InMemoryRepository((Map<String, Customer>) fields.get("customers", null),
+                (Map<String, Account>) fields.get("accounts", null),
+                (Map<String, Set<String>>) fields.get("accountsByCustomer", null));
+        journalSeq = fields.get("journalSeq", 0L);
+        customerIndex = new CustomerIndex();
+        contacts = new Contacts();
+        for (Customer c : repository.customers()) loadCustomer(c);
+        List<Transaction> transactions = (List<Transaction>) fields.get("transactions", null);
+        metrics = new BankMetrics();
+        accountLocks = new AccountLocks(LOCK_STRIPES, metrics);
+        checkpointLock = new ReentrantReadWriteLock();
+        snapshotLock = new Object();
+        ledger = new HeapLedgerStore();
+        transactionIndex = new TransactionIndex(ledger);
+        aggregates = new AccountAggregates();
+        for (Account a : repository.accounts()) Ids.observe(a.getAccountId());
+        for (Transaction t : transactions) {
+            Ids.observe(t.getTransactionId());
+            appendToLedger(t);
+        }
+    }
+
+    // helpers
+    // a customer read back from storage; its id is passed to the id generator, as are
+    // those of loaded accounts and transactions, so new entities never reuse one
+    private void loadCustomer(Customer c) {
+        Ids.observe(c.getCustomerId());
+        customerIndex.load(c);
+        c.attachContactListener(contacts);
+    }
+
+    private void openAccount(Account acc) {
+        lockCheckpoint();
+        accountLocks.lock(acc.getAccountId());
+        try {
+            registerAccount(acc);
+            Journal j = journal;
+            if (j != null) j.appendAccount(acc);
+            long initialDeposit = acc.getBalanceMinor();
+            if (initialDeposit > 0) recordTransaction(Transaction.Type.DEPOSIT, null, 0, acc, initialDeposit, initialDeposit, "Initial deposit");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Journal write failed", e);
+        } finally {
+            accountLocks.unlock(acc.getAccountId());
+            checkpointLock.readLock().unlock();
+        }
+        awaitDurable();
+    }
+
+    private void markClosed(Account acc) {
+        acc.close();
+        repository.putAccount(acc);
+    }
+
+    // the stored instance of acc once its stripe is held; a cached repository may have
+    // evicted and reloaded it since acc was looked up
+    private Account lockedAccount(Account acc) {
+        Account current = repository.getAccount(acc.getAccountId());
+        return current != null ? current : acc;
+    }
+
+    private void restoreBalance(String accountId, long balance) {
+        Account acc = repository.getAccount(accountId);
+        if (acc != null) restoreBalance(acc, balance);
+    }
+
+    private void restoreBalance(Account acc, long balance) {
+        acc.restoreBalanceMinor(balance);
+        repository.balanceChanged(acc);
+    }
+
+    // shared side of the checkpoint lock; only a contended acquire is timed, and a queued
+    // save or snapshot is never barged past
+    private void lockCheckpoint() {
+        ReentrantReadWriteLock.ReadLock lock = checkpointLock.readLock();
+        if (!checkpointLock.hasQueuedThreads() && lock.tryLock()) return;
+        long start = System.nanoTime();
+        lock.lock();
+        metrics.checkpointLockWait(System.nanoTime() - start);
+    }
+
+    // waits for the journal to make this thread's records durable (group commit), and
+    // writes out a full repository batch between operations. The operation has already
+    // been applied by then, so a failed batch is not its failure: the batch stays pending
+    // for the next flush, and the failure is counted under FLUSH
+    private void awaitDurable() {
+        if (repository.needsFlush()) {
+            try {
+                flushRepository();
+            } catch (IllegalStateException e) {
+                // counted by flushRepository
+            }
+        }
+        Journal j = journal;
+        if (j == null) return;
+        try {
+            j.commit();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Journal sync failed", e);
+        }
+    }
+
+    private void registerAccount(Account acc) {
+        repository.putAccount(acc);
+    }
+
     private void requireCustomerExists(String customerId) throws EntityNotFoundException {
-        if (!customers.containsKey(customerId)) throw new EntityNotFoundException("Customer not found: " + customerId);
+        if (repository.getCustomer(customerId) == null) throw new EntityNotFoundException("Customer not found: " + customerId);
     }
 }
@@ -0,0 +1,253 @@
+package services;
+
+import exceptions.EntityNotFoundException;
+import exceptions.InsufficientFundsException;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Operation counters and latency histograms for one {@link Bank}.
+ *
+ * Every public operation is counted exactly and failures are counted by cause. Latency is
+ * recorded for every slow operation but only for one in {@value #SAMPLE_EVERY} of the hot
+ * per-request ones (deposits, transfers, lookups), which keeps two clock reads off most
+ * calls; the percentiles of a uniform sample track the full distribution closely. Time
+ * spent blocked on account stripes or the checkpoint lock is tracked separately, and an
+ * uncontended lock costs nothing extra. Counters are {@link LongAdder}s and histograms are
+ * striped, so recording never serializes callers. Exposed over JMX via
+ * {@link #registerMBean} and as text via {@link #dump()}.
+ */
+public class BankMetrics implements BankMetricsMXBean {
+
+    public enum Op {
+        CREATE_CUSTOMER(true), UPDATE_CUSTOMER(true), OPEN_ACCOUNT(true), CLOSE_ACCOUNT(true), DEPOSIT(true), WITHDRAW(true),
+        TRANSFER(true), BATCH(false), INTEREST(false), LIST_ACCOUNTS(true), LIST_TRANSACTIONS(true),
+        FIND_CUSTOMERS(true), BALANCE_AT(true), BALANCES_AT(false), SAVE(false), SNAPSHOT(false),
+        FLUSH(false), LOAD(false);
+
+        private final boolean sampled;
+
+        Op(boolean sampled) { this.sampled = sampled; }
+    }
+
+    public enum Failure { INSUFFICIENT_FUNDS, NOT_FOUND, INVALID_ARGUMENT, OTHER }
+
+    private static final Op[] OPS = Op.values();
+    private static final Failure[] FAILURES = Failure.values();
+    static final int SAMPLE_EVERY = 16;
+    private static final long UNTIMED = 1;  // start() result for a counted but untimed call
+
+    private final LongAdder[] counts = new LongAdder[OPS.length];
+
+    private final LatencyHistogram[] latencies = new LatencyHistogram[OPS.length];
+    private final LongAdder[] failures = new LongAdder[OPS.length * FAILURES.length];
+    private final LatencyHistogram accountLockWaits = new LatencyHistogram();
+    private final LatencyHistogram checkpointLockWaits = new LatencyHistogram();
+    private volatile boolean enabled = true;
+    private ObjectName registeredName;
+
+    public BankMetrics() {
+        for (int i = 0; i < latencies.length; i++) latencies[i] = new LatencyHistogram();
+        for (int i = 0; i < counts.length; i++) counts[i] = new LongAdder();
+        for (int i = 0; i < failures.length; i++) failures[i] = new LongAdder();
+    }
+
+    // ----- Recording -----
+
+    // returns the token to pass to finish: 0 while disabled, otherwise the start time of a
+    // timed call (a clock reading of exactly 0 or 1 just loses that sample)
+    long start(Op op) {
+        if (!enabled) return 0;
+        if (op.sampled && (ThreadLocalRandom.current().nextInt() & (SAMPLE_EVERY - 1)) != 0) return UNTIMED;
+        return System.nanoTime();
+    }
+
+    void finish(Op op, long start) {
+        if (start == 0) return;
+        counts[op.ordinal()].increment();
+        if (start != UNTIMED) latencies[op.ordinal()].record(System.nanoTime() - start);
+    }
+
+    void failed(Op op, Exception e) {
+        if (!enabled) return;
+        Failure f = e instanceof InsufficientFundsException ? Failure.INSUFFICIENT_FUNDS
+                : e instanceof EntityNotFoundException ? Failure.NOT_FOUND
+                : e instanceof IllegalArgumentException ? Failure.INVALID_ARGUMENT
+                : Failure.OTHER;
+        failures[op.ordinal() * FAILURES.length + f.ordinal()].increment();
+    }
+
+    void accountLockWait(long nanos) {
+        if (enabled) accountLockWaits.record(nanos);
+    }
+
+    void checkpointLockWait(long nanos) {
+        if (enabled) checkpointLockWaits.record(nanos);
+    }
+
+    // ----- Reading -----
+    public long count(Op op) {
+        return counts[op.ordinal()].sum();
+    }
+
+    // sampled for hot operations: use count(op) for the number of calls
+    public LatencyHistogram.Summary latency(Op op) {
+        return latencies[op.ordinal()].summary();
+    }
+
+    public long failures(Op op, Failure failure) {
+        return failures[op.ordinal() * FAILURES.length + failure.ordinal()].sum();
+    }
+
+    public long failures(Op op) {
+        long n = 0;
+        for (Failure f : FAILURES) n += failures(op, f);
+        return n;
+    }
+
+    public LatencyHistogram.Summary accountLockWaits() { return accountLockWaits.summary(); }
+    public LatencyHistogram.Summary checkpointLockWaits() { return checkpointLockWaits.summary(); }
+
+    @Override
+    public boolean isEnabled() { return enabled; }
+
+    @Override
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram h : latencies) h.reset();
+        for (LongAdder a : counts) a.reset();
+        for (LongAdder a : failures) a.reset();
+        accountLockWaits.reset();
+        checkpointLockWaits.reset();
+    }
+
+    @Override
+    public String dump() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-18s %10s %8s %10s %10s %10s %10s %10s%n",
+                "operation", "count", "failed", "mean(us)", "p50(us)", "p99(us)", "p99.9(us)", "max(us)"));
+        for (Op op : OPS) {
+            long n = count(op);
+            if (n == 0) continue;
+            LatencyHistogram.Summary s = latency(op);
+            sb.append(String.format("%-18s %10d %8d %10.1f %10.1f %10.1f %10.1f %10.1f%n", op, n, failures(op),
+                    s.getMeanNanos() / 1000, s.percentile(50) / 1000.0, s.percentile(99) / 1000.0,
+                    s.percentile(99.9) / 1000.0, s.getMaxNanos() / 1000.0));
+        }
+        Map<String, Long> failed = getFailureCounts();
+        if (!failed.isEmpty()) {
+            sb.append("failures:");
+            failed.forEach((k, v) -> sb.append(' ').append(k).append('=').append(v));
+            sb.append(System.lineSeparator());
+        }
+        appendWaits(sb, "account lock waits", accountLockWaits());
+        appendWaits(sb, "checkpoint waits", checkpointLockWaits());
+        return sb.toString();
+    }
+
+    private static void appendWaits(StringBuilder sb, String label, LatencyHistogram.Summary s) {
+        sb.append(String.format("%s: %d, total %.1f ms, p99 %.1f us, max %.1f us%n", label, s.getCount(),
+                s.getTotalNanos() / 1e6, s.percentile(99) / 1000.0, s.getMaxNanos() / 1000.0));
+    }
+
+    // ----- JMX -----
+
+    /**
+     * Registers this instance as {@code bank:type=BankMetrics,name=<name>}, replacing any
+     * bean already registered under that name.
+     */
+    public synchronized void registerMBean(String name) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName("bank:type=BankMetrics,name=" + ObjectName.quote(name));
+            unregisterMBean();
+            try {
+                server.registerMBean(this, objectName);
+            } catch (InstanceAlreadyExistsException e) {
+                server.unregisterMBean(objectName);
+                server.registerMBean(this, objectName);
+            }
+            registeredName = objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register bank metrics MBean", e);
+        }
+    }
+
+    public synchronized void unregisterMBean() {
+        if (registeredName == null) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+        } catch (JMException e) {
+            // already gone
+        }
+        registeredName = null;
+    }
+
+    @Override
+    public Map<String, Long> getOperationCounts() {
+        Map<String, Long> out = new LinkedHashMap<>();
+        for (Op op : OPS) {
+            long n = count(op);
+            if (n != 0) out.put(op.name(), n);
+        }
+        return out;
+    }
+
+    @Override
+    public Map<String, Double> getMeanMicros() { return perOp(s -> s.getMeanNanos() / 1000); }
+
+    @Override
+    public Map<String, Double> getP50Micros() { return perOp(s -> s.percentile(50) / 1000.0); }
+
+    @Override
+    public Map<String, Double> getP99Micros() { return perOp(s -> s.percentile(99) / 1000.0); }
+
+    @Override
+    public Map<String, Double> getP999Micros() { return perOp(s -> s.percentile(99.9) / 1000.0); }
+
+    @Override
+    public Map<String, Double> getMaxMicros() { return perOp(s -> s.getMaxNanos() / 1000.0); }
+
+    @Override
+    public Map<String, Long> getFailureCounts() {
+        Map<String, Long> out = new LinkedHashMap<>();
+        for (Op op : OPS) {
+            for (Failure f : FAILURES) {
+                long n = failures(op, f);
+                if (n != 0) out.put(op + "." + f, n);
+            }
+        }
+        return out;
+    }
+
+    @Override
+    public long getAccountLockWaits() { return accountLockWaits().getCount(); }
+
+    @Override
+    public double getAccountLockWaitMillis() { return accountLockWaits().getTotalNanos() / 1e6; }
+
+    @Override
+    public long getCheckpointLockWaits() { return checkpointLockWaits().getCount(); }
+
+    @Override
+    public double getCheckpointLockWaitMillis() { return checkpointLockWaits().getTotalNanos() / 1e6; }
+
+    private <T> Map<String, T> perOp(Function<LatencyHistogram.Summary, T> value) {
+        Map<String, T> out = new LinkedHashMap<>();
+        for (Op op : OPS) {
+            if (count(op) != 0) out.put(op.name(), value.apply(latency(op)));
+        }
+        return out;
+    }
+}
@@ -0,0 +1,24 @@
+package services;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link BankMetrics}. Latencies are in microseconds and keyed by operation.
+ */
+public interface BankMetricsMXBean {
+    Map<String, Long> getOperationCounts();
+    Map<String, Long> getFailureCounts();
+    Map<String, Double> getMeanMicros();
+    Map<String, Double> getP50Micros();
+    Map<String, Double> getP99Micros();
+    Map<String, Double> getP999Micros();
+    Map<String, Double> getMaxMicros();
+    long getAccountLockWaits();
+    double getAccountLockWaitMillis();
+    long getCheckpointLockWaits();
+    double getCheckpointLockWaitMillis();
+    boolean isEnabled();
+    void setEnabled(boolean enabled);
+    String dump();
+    void reset();
+}
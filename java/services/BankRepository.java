@@ -0,0 +1,47 @@
+package services;
+
+import models.Account;
+import models.Customer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Storage for customers and accounts; transactions live in a {@link LedgerStore}.
+ *
+ * {@link Bank} mutates accounts only while holding the account's lock stripe, and it
+ * looks the account up again once the stripe is held, so an implementation may evict
+ * and reload account objects as long as a reload never misses a balance it was told
+ * about through {@link #balanceChanged}.
+ */
+interface BankRepository extends Closeable {
+    // inserts, or replaces the customer with the same id
+    void putCustomer(Customer customer);
+
+    Customer getCustomer(String customerId); // null when unknown
+
+    Collection<Customer> customers();
+
+    // inserts, or replaces the account with the same id, including its open/closed state
+    void putAccount(Account account);
+
+    Account getAccount(String accountId); // null when unknown
+
+    Collection<Account> accounts();
+
+    List<Account> openAccountsOf(String customerId);
+
+    // the balance of a stored account has moved; called with the account's stripe held
+    void balanceChanged(Account account);
+
+    // true once enough changes are buffered that the bank should flush at the next quiet point
+    default boolean needsFlush() { return false; }
+
+    // makes everything handed over so far durable in the backing store
+    default void flush() {}
+
+    @Override
+    default void close() throws IOException {}
+}
@@ -0,0 +1,11 @@
+package services;
+
+/**
+ * How {@link Bank#applyBatch} treats a failing operation.
+ */
+public enum BatchMode {
+    /** Any failure rejects the whole batch; no balance changes and nothing is recorded. */
+    ALL_OR_NOTHING,
+    /** Failing operations are skipped and reported; the rest are applied. */
+    BEST_EFFORT
+}
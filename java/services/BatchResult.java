@@ -0,0 +1,83 @@
+package services;
+
+import models.Transaction;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of {@link Bank#applyBatch}, one item per submitted operation in submission order.
+ */
+public class BatchResult {
+    public enum Status { APPLIED, FAILED, ABORTED }
+
+    /**
+     * Result of one operation. APPLIED items carry their transaction and its sequence
+     * number, FAILED items the reason; ABORTED items were valid but rolled back with an
+     * all-or-nothing batch.
+     */
+    public static class Item {
+        private final int index;
+        private final Status status;
+        private final Transaction transaction;
+        private final long sequence;
+        private final String error;
+        private final Exception cause; // what a single call would have thrown instead
+
+        Item(int index, Status status, Transaction transaction, String error) {
+            this(index, status, transaction, -1, error, null);
+        }
+
+        // an applied operation and the ledger position it was recorded at
+        Item(int index, Transaction transaction, long sequence) {
+            this(index, Status.APPLIED, transaction, sequence, null, null);
+        }
+
+        // a failed operation and the exception behind it
+        Item(int index, Exception cause) {
+            this(index, Status.FAILED, null, -1, cause.getMessage(), cause);
+        }
+
+        private Item(int index, Status status, Transaction transaction, long sequence, String error, Exception cause) {
+            this.index = index;
+            this.status = status;
+            this.transaction = transaction;
+            this.sequence = sequence;
+            this.error = error;
+            this.cause = cause;
+        }
+
+        public int getIndex() { return index; }
+        public Status getStatus() { return status; }
+        public Transaction getTransaction() { return transaction; }
+        public String getError() { return error; }
+        Exception getCause() { return cause; }
+
+        /**
+         * Global sequence number of an applied operation: the ledger position of its
+         * transaction, which orders it against every other recorded transaction. -1 unless
+         * APPLIED.
+         */
+        public long getSequence() { return sequence; }
+
+        @Override
+        public String toString() {
+            return "Item{index=" + index + ", status=" + status
+                    + (transaction != null ? ", transaction=" + transaction.getTransactionId() + ", sequence=" + sequence : "")
+                    + (error != null ? ", error='" + error + '\'' : "") + '}';
+        }
+    }
+
+    private final List<Item> items;
+    private final int applied;
+
+    BatchResult(List<Item> items) {
+        this.items = Collections.unmodifiableList(items);
+        this.applied = (int) items.stream().filter(i -> i.getStatus() == Status.APPLIED).count();
+    }
+
+    public List<Item> getItems() { return items; }
+    public int getAppliedCount() { return applied; }
+    public int getFailedCount() { return items.size() - applied; }
+    public boolean isFullyApplied() { return applied == items.size(); }
+}
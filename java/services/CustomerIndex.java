@@ -0,0 +1,161 @@
+package services;
+
+import models.Customer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Customer lookups by email and phone, kept in sorted concurrent maps so a prefix search
+ * is a range scan. Emails compare case-insensitively and are unique. Phones compare on
+ * their digits (and a leading +) and may be shared, so the phone map is keyed by phone
+ * and customer id together. Both maps hold customer ids rather than customers, so a
+ * cached repository can still evict the customers themselves.
+ *
+ * Contact changes go through {@link Bank#updateCustomerContact}, including those made with
+ * a bank customer's own setters, which claims the new entries before the change is stored
+ * and releases the old ones after, so a clash or a failed store leaves the customer as it
+ * was. Uniqueness is enforced on those changes and on new customers; customers loaded from
+ * files written before it was are all indexed, and lookups by a shared email find the first
+ * one loaded until it changes its email.
+ */
+final class CustomerIndex {
+    private static final char SEPARATOR = '\u0000';
+
+    private final ConcurrentSkipListMap<String, String> byEmail = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<String, String> byPhone = new ConcurrentSkipListMap<>();
+    // loaded customers whose email another customer holds in byEmail; one of them takes
+    // the email over when its holder lets go of it
+    private final Map<String, Set<String>> shadowed = new HashMap<>();
+
+    // a new customer; throws if another customer has the email
+    void add(Customer c) {
+        String email = emailKey(c.getEmail());
+        if (email != null && byEmail.putIfAbsent(email, c.getCustomerId()) != null) {
+            throw new IllegalArgumentException("Email already in use: " + c.getEmail());
+        }
+        putPhone(c.getCustomerId(), c.getPhone());
+    }
+
+    // a customer read back from storage; files saved before emails were unique may hold
+    // several customers with one email, and the first loaded keeps it in the email map.
+    // The others are still found by id and phone, and can be given an email of their own
+    void load(Customer c) {
+        String email = emailKey(c.getEmail());
+        if (email != null) {
+            String owner = byEmail.putIfAbsent(email, c.getCustomerId());
+            if (owner != null && !owner.equals(c.getCustomerId())) {
+                synchronized (shadowed) {
+                    shadowed.computeIfAbsent(email, k -> new LinkedHashSet<>()).add(c.getCustomerId());
+                }
+                System.err.println("Customers " + owner + " and " + c.getCustomerId() + " share the email "
+                        + c.getEmail() + "; lookups by email find " + owner);
+            }
+        }
+        putPhone(c.getCustomerId(), c.getPhone());
+    }
+
+    void remove(Customer c) {
+        String email = emailKey(c.getEmail());
+        if (email != null) removeEmail(email, c.getCustomerId());
+        removePhone(c.getCustomerId(), c.getPhone());
+    }
+
+    String idByEmail(String email) {
+        String key = emailKey(email);
+        return key == null ? null : byEmail.get(key);
+    }
+
+    List<String> idsByPhone(String phone) {
+        String key = phoneKey(phone);
+        if (key == null) return new ArrayList<>();
+        return scan(byPhone, key + SEPARATOR, Integer.MAX_VALUE);
+    }
+
+    List<String> idsByEmailPrefix(String prefix, int limit) {
+        String key = emailKey(prefix);
+        return key == null ? new ArrayList<>() : scan(byEmail, key, limit);
+    }
+
+    List<String> idsByPhonePrefix(String prefix, int limit) {
+        String key = phoneKey(prefix);
+        return key == null ? new ArrayList<>() : scan(byPhone, key, limit);
+    }
+
+    // entries for a new email and phone of c next to its current ones; throws, adding
+    // nothing, if another customer has a changed email
+    void claim(Customer c, String email, String phone) {
+        String key = emailKey(email);
+        if (key != null && !key.equals(emailKey(c.getEmail()))) {
+            String owner = byEmail.putIfAbsent(key, c.getCustomerId());
+            if (owner != null && !owner.equals(c.getCustomerId())) throw new IllegalArgumentException("Email already in use: " + email);
+        }
+        putPhone(c.getCustomerId(), phone);
+    }
+
+    // drops the entries for an email and phone of c that are no longer its current ones
+    void release(Customer c, String email, String phone) {
+        String key = emailKey(email);
+        if (key != null && !key.equals(emailKey(c.getEmail()))) removeEmail(key, c.getCustomerId());
+        if (!Objects.equals(phoneKey(phone), phoneKey(c.getPhone()))) removePhone(c.getCustomerId(), phone);
+    }
+
+    private void removeEmail(String key, String customerId) {
+        synchronized (shadowed) {
+            Set<String> others = shadowed.get(key);
+            if (byEmail.remove(key, customerId) && others != null) {
+                Iterator<String> it = others.iterator();
+                byEmail.putIfAbsent(key, it.next());
+                it.remove();
+            } else if (others != null) {
+                others.remove(customerId);
+            }
+            if (others != null && others.isEmpty()) shadowed.remove(key);
+        }
+    }
+
+    private void putPhone(String customerId, String phone) {
+        String key = phoneKey(phone);
+        if (key != null) byPhone.put(key + SEPARATOR + customerId, customerId);
+    }
+
+    private void removePhone(String customerId, String phone) {
+        String key = phoneKey(phone);
+        if (key != null) byPhone.remove(key + SEPARATOR + customerId);
+    }
+
+    // values of the keys starting with prefix, in key order
+    private static List<String> scan(ConcurrentSkipListMap<String, String> map, String prefix, int limit) {
+        List<String> ids = new ArrayList<>();
+        for (Map.Entry<String, String> e : map.tailMap(prefix).entrySet()) {
+            if (ids.size() >= limit || !e.getKey().startsWith(prefix)) break;
+            ids.add(e.getValue());
+        }
+        return ids;
+    }
+
+    static String emailKey(String email) {
+        if (email == null) return null;
+        String key = email.trim().toLowerCase(Locale.ROOT);
+        return key.isEmpty() ? null : key;
+    }
+
+    // digits only, keeping a leading +: "+91 99900-11111" and "+919990011111" are one phone
+    static String phoneKey(String phone) {
+        if (phone == null) return null;
+        StringBuilder sb = new StringBuilder(phone.length());
+        for (int i = 0; i < phone.length(); i++) {
+            char ch = phone.charAt(i);
+            if (ch >= '0' && ch <= '9' || ch == '+' && sb.length() == 0) sb.append(ch);
+        }
+        return sb.length() == 0 ? null : sb.toString();
+    }
+}
@@ -0,0 +1,50 @@
+package services;
+
+import models.Transaction;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Default ledger store: transactions on the heap in append-only chunks.
+ * Readers see a published size and then read chunks without locking.
+ */
+class HeapLedgerStore implements LedgerStore {
+    private static final int CHUNK_SHIFT = 14;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private volatile Transaction[][] chunks = new Transaction[16][];
+    private volatile long size;
+
+    @Override
+    public synchronized long append(Transaction t) {
+        long i = size;
+        int c = (int) (i >>> CHUNK_SHIFT);
+        Transaction[][] cs = chunks;
+        if (c == cs.length) cs = Arrays.copyOf(cs, cs.length << 1);
+        if (cs[c] == null) cs[c] = new Transaction[CHUNK_SIZE];
+        cs[c][(int) (i & CHUNK_MASK)] = t;
+        chunks = cs;
+        size = i + 1; // publish after the slot is written
+        return i;
+    }
+
+    @Override
+    public synchronized long appendAll(List<Transaction> batch) {
+        long first = size;
+        for (Transaction t : batch) append(t);
+        return first;
+    }
+
+    @Override
+    public Transaction get(long position) {
+        if (position < 0 || position >= size) throw new IndexOutOfBoundsException("Ledger position " + position);
+        return chunks[(int) (position >>> CHUNK_SHIFT)][(int) (position & CHUNK_MASK)];
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+}
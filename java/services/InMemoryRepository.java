@@ -0,0 +1,113 @@
+package services;
+
+import models.Account;
+import models.Customer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Default repository: customers and accounts in heap maps, plus the customer to open
+ * accounts index. Account objects are never replaced, so balance changes need no
+ * bookkeeping.
+ */
+class InMemoryRepository implements BankRepository {
+    private final Map<String, Customer> customers;
+    private final Map<String, Account> accounts;
+    // customerId -> ids of that customer's open accounts
+    private final Map<String, Set<String>> accountsByCustomer;
+
+    InMemoryRepository() {
+        this(new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), null);
+    }
+
+    // adopts maps read back from a serialized bank; a null index is rebuilt
+    InMemoryRepository(Map<String, Customer> customers, Map<String, Account> accounts, Map<String, Set<String>> accountsByCustomer) {
+        this.customers = customers;
+        this.accounts = accounts;
+        if (accountsByCustomer == null) { // files written before the index existed
+            this.accountsByCustomer = new ConcurrentHashMap<>();
+            for (Account acc : accounts.values()) {
+                if (acc.isActive()) index(acc);
+            }
+        } else {
+            this.accountsByCustomer = accountsByCustomer;
+        }
+    }
+
+    // this repository's maps if it is one, otherwise a heap copy of the other repository
+    static InMemoryRepository of(BankRepository repository) {
+        if (repository instanceof InMemoryRepository) return (InMemoryRepository) repository;
+        InMemoryRepository copy = new InMemoryRepository();
+        for (Customer c : repository.customers()) copy.putCustomer(c);
+        for (Account a : repository.accounts()) copy.putAccount(a);
+        return copy;
+    }
+
+    Map<String, Customer> customerMap() { return customers; }
+    Map<String, Account> accountMap() { return accounts; }
+    Map<String, Set<String>> accountsByCustomer() { return accountsByCustomer; }
+
+    @Override
+    public void putCustomer(Customer customer) {
+        customers.put(customer.getCustomerId(), customer);
+    }
+
+    @Override
+    public Customer getCustomer(String customerId) {
+        return customers.get(customerId);
+    }
+
+    @Override
+    public Collection<Customer> customers() {
+        return Collections.unmodifiableCollection(customers.values());
+    }
+
+    @Override
+    public void putAccount(Account account) {
+        accounts.put(account.getAccountId(), account);
+        if (account.isActive()) {
+            index(account);
+        } else {
+            Set<String> ids = accountsByCustomer.get(account.getCustomerId());
+            if (ids != null) ids.remove(account.getAccountId());
+        }
+    }
+
+    @Override
+    public Account getAccount(String accountId) {
+        return accounts.get(accountId);
+    }
+
+    @Override
+    public Collection<Account> accounts() {
+        return Collections.unmodifiableCollection(accounts.values());
+    }
+
+    @Override
+    public List<Account> openAccountsOf(String customerId) {
+        Set<String> ids = accountsByCustomer.get(customerId);
+        if (ids == null) return new ArrayList<>();
+        List<Account> result = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Account acc = accounts.get(id);
+            if (acc != null) result.add(acc);
+        }
+        return result;
+    }
+
+    @Override
+    public void balanceChanged(Account account) {
+        // the map holds the live object
+    }
+
+    private void index(Account acc) {
+        accountsByCustomer.computeIfAbsent(acc.getCustomerId(), k -> ConcurrentHashMap.newKeySet())
+                .add(acc.getAccountId());
+    }
+}
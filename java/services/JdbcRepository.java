@@ -0,0 +1,536 @@
+package services;
+
+import models.Account;
+import models.CurrentAccount;
+import models.Customer;
+import models.Money;
+import models.SavingsAccount;
+import models.Transaction;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Customers, accounts and the ledger in a relational database, in the tables of
+ * {@code sql/bank_management.sql} (created when missing).
+ *
+ * Hot customers and accounts are served from size-bounded LRU caches, so the working set
+ * stays in memory while the full dataset lives in the database. Customer and account rows
+ * are committed as they are put, each in its own database transaction, so a row the
+ * database refuses fails the put and nothing else. Transactions and balance updates are
+ * buffered and written as JDBC batches, one database transaction per flush; the bank
+ * flushes between operations, so a commit never holds half of one, and a flush that fails
+ * leaves everything pending for the next. Every statement is prepared once and reused,
+ * and all database access goes through a single connection guarded by this object.
+ *
+ * Rows are checked against the column sizes before they are accepted: puts with an
+ * over-long field are refused, and notes longer than the column are cut to fit. Account
+ * balances only reach the database with the flush that writes the transactions behind
+ * them, so a committed balance never counts an uncommitted transaction.
+ *
+ * Accounts are loaded under their lock stripe, so a load never races a thread that has
+ * changed the balance but not yet reported it; balances reported but not yet flushed are
+ * served from the pending set rather than the database.
+ */
+class JdbcRepository implements BankRepository {
+    static final int DEFAULT_BATCH = 512;
+
+    // column sizes of SCHEMA
+    private static final int ID_LENGTH = 36;
+    private static final int NAME_LENGTH = 100;
+    private static final int EMAIL_LENGTH = 100;
+    private static final int PHONE_LENGTH = 15;
+    private static final int NOTE_LENGTH = 255;
+    private static final BigDecimal MAX_RATE = new BigDecimal("999.99");
+
+    // sql/bank_management.sql with application-assigned ids and the columns the model needs
+    private static final String[] SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS customers ("
+                    + " customer_id VARCHAR(36) PRIMARY KEY,"
+                    + " name VARCHAR(100) NOT NULL,"
+                    + " email VARCHAR(100) UNIQUE NOT NULL,"
+                    + " phone VARCHAR(15))",
+            "CREATE TABLE IF NOT EXISTS accounts ("
+                    + " account_id VARCHAR(36) PRIMARY KEY,"
+                    + " customer_id VARCHAR(36) NOT NULL,"
+                    + " account_type ENUM('Savings', 'Current') NOT NULL,"
+                    + " balance DECIMAL(19,2) DEFAULT 0,"
+                    + " interest_rate DECIMAL(5,2) DEFAULT 0,"
+                    + " overdraft_limit DECIMAL(19,2) DEFAULT 0,"
+                    + " created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,"
+                    + " active BOOLEAN DEFAULT TRUE NOT NULL,"
+                    + " FOREIGN KEY (customer_id) REFERENCES customers(customer_id))",
+            "CREATE INDEX IF NOT EXISTS idx_accounts_customer ON accounts(customer_id)",
+            "CREATE TABLE IF NOT EXISTS transactions ("
+                    + " seq BIGINT PRIMARY KEY,"
+                    + " transaction_id VARCHAR(36) UNIQUE NOT NULL,"
+                    + " account_id VARCHAR(36) NOT NULL,"
+                    + " to_account_id VARCHAR(36),"
+                    + " type ENUM('Deposit', 'Withdrawal', 'Transfer', 'Interest') NOT NULL,"
+                    + " amount DECIMAL(19,2) NOT NULL,"
+                    + " note VARCHAR(255),"
+                    + " created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,"
+                    + " FOREIGN KEY (account_id) REFERENCES accounts(account_id),"
+                    + " FOREIGN KEY (to_account_id) REFERENCES accounts(account_id))",
+    };
+
+    private static final String CUSTOMER_COLUMNS = "customer_id, name, email, phone";
+    private static final String ACCOUNT_COLUMNS =
+            "account_id, customer_id, account_type, balance, interest_rate, overdraft_limit, created_at, active";
+    private static final String TRANSACTION_COLUMNS =
+            "seq, transaction_id, account_id, to_account_id, type, amount, note, created_at";
+
+    private final Connection connection;
+    private final AccountLocks locks;
+    private final int batchSize;
+    private final LruCache<String, Customer> customerCache;
+    private final LruCache<String, Account> accountCache;
+    private final Ledger ledger = new Ledger();
+
+    private final PreparedStatement insertCustomer;
+    private final PreparedStatement updateCustomer;
+    private final PreparedStatement selectCustomer;
+    private final PreparedStatement selectCustomers;
+    private final PreparedStatement insertAccount;
+    private final PreparedStatement updateAccount;
+    private final PreparedStatement selectAccount;
+    private final PreparedStatement selectAccounts;
+    private final PreparedStatement selectOpenAccountIds;
+    private final PreparedStatement updateBalance;
+    private final PreparedStatement insertTransaction;
+    private final PreparedStatement selectTransaction;
+    private final PreparedStatement scanTransactions;
+
+    // handed over but not yet written; guarded by this
+    private final List<Transaction> pendingTransactions = new ArrayList<>();
+    private final Map<String, Account> dirtyAccounts = new LinkedHashMap<>();
+    private volatile long size; // ledger length, pending included
+    private long written;       // ledger length in the database
+
+    JdbcRepository(String url, int cacheCapacity, int batchSize, AccountLocks locks) throws SQLException {
+        if (batchSize <= 0) throw new IllegalArgumentException("Batch size must be > 0");
+        this.locks = locks;
+        this.batchSize = batchSize;
+        this.customerCache = new LruCache<>(cacheCapacity);
+        this.accountCache = new LruCache<>(cacheCapacity);
+        connection = DriverManager.getConnection(url);
+        try {
+            connection.setAutoCommit(false);
+            try (Statement st = connection.createStatement()) {
+                for (String ddl : SCHEMA) st.execute(ddl);
+            }
+            connection.commit();
+            insertCustomer = connection.prepareStatement("INSERT INTO customers (" + CUSTOMER_COLUMNS + ") VALUES (?, ?, ?, ?)");
+            updateCustomer = connection.prepareStatement("UPDATE customers SET name = ?, email = ?, phone = ? WHERE customer_id = ?");
+            selectCustomer = connection.prepareStatement("SELECT " + CUSTOMER_COLUMNS + " FROM customers WHERE customer_id = ?");
+            selectCustomers = connection.prepareStatement("SELECT " + CUSTOMER_COLUMNS + " FROM customers");
+            insertAccount = connection.prepareStatement("INSERT INTO accounts (" + ACCOUNT_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+            updateAccount = connection.prepareStatement("UPDATE accounts SET customer_id = ?, account_type = ?,"
+                    + " interest_rate = ?, overdraft_limit = ?, created_at = ?, active = ? WHERE account_id = ?");
+            selectAccount = connection.prepareStatement("SELECT " + ACCOUNT_COLUMNS + " FROM accounts WHERE account_id = ?");
+            selectAccounts = connection.prepareStatement("SELECT " + ACCOUNT_COLUMNS + " FROM accounts");
+            selectOpenAccountIds = connection.prepareStatement("SELECT account_id FROM accounts WHERE customer_id = ? AND active");
+            updateBalance = connection.prepareStatement("UPDATE accounts SET balance = ? WHERE account_id = ?");
+            insertTransaction = connection.prepareStatement("INSERT INTO transactions (" + TRANSACTION_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+            selectTransaction = connection.prepareStatement("SELECT " + TRANSACTION_COLUMNS + " FROM transactions WHERE seq = ?");
+            scanTransactions = connection.prepareStatement("SELECT " + TRANSACTION_COLUMNS + " FROM transactions ORDER BY seq");
+            scanTransactions.setFetchSize(1_000);
+            try (Statement st = connection.createStatement();
+                 ResultSet rs = st.executeQuery("SELECT COALESCE(MAX(seq) + 1, 0) FROM transactions")) {
+                rs.next();
+                written = size = rs.getLong(1);
+            }
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    LedgerStore ledger() { return ledger; }
+
+    long cacheHits() { return customerCache.hits() + accountCache.hits(); }
+    long cacheMisses() { return customerCache.misses() + accountCache.misses(); }
+
+    // ----- Customers -----
+
+    @Override
+    public synchronized void putCustomer(Customer customer) {
+        checkLength("Customer id", customer.getCustomerId(), ID_LENGTH, true);
+        checkLength("Name", customer.getName(), NAME_LENGTH, true);
+        checkLength("Email", customer.getEmail(), EMAIL_LENGTH, true);
+        checkLength("Phone", customer.getPhone(), PHONE_LENGTH, false);
+        try {
+            updateCustomer.setString(1, customer.getName());
+            updateCustomer.setString(2, customer.getEmail());
+            updateCustomer.setString(3, customer.getPhone());
+            updateCustomer.setString(4, customer.getCustomerId());
+            if (updateCustomer.executeUpdate() == 0) {
+                insertCustomer.setString(1, customer.getCustomerId());
+                insertCustomer.setString(2, customer.getName());
+                insertCustomer.setString(3, customer.getEmail());
+                insertCustomer.setString(4, customer.getPhone());
+                insertCustomer.executeUpdate();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            throw rollback(e);
+        }
+        customerCache.put(customer.getCustomerId(), customer);
+    }
+
+    @Override
+    public Customer getCustomer(String customerId) {
+        Customer c = customerCache.get(customerId);
+        if (c != null) return c;
+        synchronized (this) {
+            try {
+                selectCustomer.setString(1, customerId);
+                try (ResultSet rs = selectCustomer.executeQuery()) {
+                    c = rs.next() ? customer(rs) : null;
+                }
+            } catch (SQLException e) {
+                throw failure(e);
+            }
+        }
+        if (c != null) customerCache.put(customerId, c);
+        return c;
+    }
+
+    @Override
+    public synchronized Collection<Customer> customers() {
+        List<Customer> out = new ArrayList<>();
+        try (ResultSet rs = selectCustomers.executeQuery()) {
+            while (rs.next()) {
+                Customer cached = customerCache.get(rs.getString(1));
+                out.add(cached != null ? cached : customer(rs));
+            }
+        } catch (SQLException e) {
+            throw failure(e);
+        }
+        return out;
+    }
+
+    // ----- Accounts -----
+
+    // the balance is left to the next flush: a new account's row starts at zero and is
+    // marked dirty, an existing one keeps the balance it has until its dirty entry is written
+    @Override
+    public synchronized void putAccount(Account account) {
+        checkLength("Account id", account.getAccountId(), ID_LENGTH, true);
+        checkLength("Customer id", account.getCustomerId(), ID_LENGTH, true);
+        if (account instanceof SavingsAccount && interestRate((SavingsAccount) account).abs().compareTo(MAX_RATE) > 0) {
+            throw new IllegalArgumentException("Interest rate out of range: " + ((SavingsAccount) account).getInterestRate());
+        }
+        boolean inserted = false;
+        try {
+            bindAccount(updateAccount, account, 1, 3);
+            updateAccount.setString(7, account.getAccountId());
+            if (updateAccount.executeUpdate() == 0) {
+                insertAccount.setString(1, account.getAccountId());
+                bindAccount(insertAccount, account, 2, 5);
+                insertAccount.setBigDecimal(4, Money.toBigDecimal(0));
+                insertAccount.executeUpdate();
+                inserted = true;
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            throw rollback(e);
+        }
+        if (inserted && account.getBalanceMinor() != 0) dirtyAccounts.put(account.getAccountId(), account);
+        accountCache.put(account.getAccountId(), account);
+    }
+
+    @Override
+    public Account getAccount(String accountId) {
+        Account acc = accountCache.get(accountId);
+        if (acc != null) return acc;
+        locks.lock(accountId);
+        try {
+            acc = accountCache.get(accountId);
+            if (acc == null) {
+                acc = loadAccount(accountId);
+                if (acc != null) accountCache.put(accountId, acc);
+            }
+            return acc;
+        } finally {
+            locks.unlock(accountId);
+        }
+    }
+
+    private synchronized Account loadAccount(String accountId) {
+        Account dirty = dirtyAccounts.get(accountId);
+        if (dirty != null) return dirty; // evicted before its balance was written
+        try {
+            selectAccount.setString(1, accountId);
+            try (ResultSet rs = selectAccount.executeQuery()) {
+                return rs.next() ? account(rs) : null;
+            }
+        } catch (SQLException e) {
+            throw failure(e);
+        }
+    }
+
+    // cached and pending instances are preferred, so callers see the live objects
+    @Override
+    public synchronized Collection<Account> accounts() {
+        List<Account> out = new ArrayList<>();
+        try (ResultSet rs = selectAccounts.executeQuery()) {
+            while (rs.next()) {
+                String id = rs.getString(1);
+                Account acc = dirtyAccounts.get(id);
+                if (acc == null) acc = accountCache.get(id);
+                out.add(acc != null ? acc : account(rs));
+            }
+        } catch (SQLException e) {
+            throw failure(e);
+        }
+        return out;
+    }
+
+    @Override
+    public List<Account> openAccountsOf(String customerId) {
+        List<String> ids = new ArrayList<>();
+        synchronized (this) {
+            try {
+                selectOpenAccountIds.setString(1, customerId);
+                try (ResultSet rs = selectOpenAccountIds.executeQuery()) {
+                    while (rs.next()) ids.add(rs.getString(1));
+                }
+            } catch (SQLException e) {
+                throw failure(e);
+            }
+        }
+        List<Account> out = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Account acc = getAccount(id);
+            if (acc != null) out.add(acc);
+        }
+        return out;
+    }
+
+    @Override
+    public synchronized void balanceChanged(Account account) {
+        dirtyAccounts.put(account.getAccountId(), account);
+    }
+
+    @Override
+    public synchronized boolean needsFlush() {
+        return pendingTransactions.size() >= batchSize || dirtyAccounts.size() >= batchSize;
+    }
+
+    // ----- Writing -----
+
+    @Override
+    public synchronized void flush() {
+        if (pendingTransactions.isEmpty() && dirtyAccounts.isEmpty()) return;
+        try {
+            long seq = written;
+            for (Transaction t : pendingTransactions) {
+                bindTransaction(seq++, t);
+                insertTransaction.addBatch();
+            }
+            if (!pendingTransactions.isEmpty()) insertTransaction.executeBatch();
+            for (Account acc : dirtyAccounts.values()) {
+                updateBalance.setBigDecimal(1, Money.toBigDecimal(acc.getBalanceMinor()));
+                updateBalance.setString(2, acc.getAccountId());
+                updateBalance.addBatch();
+            }
+            if (!dirtyAccounts.isEmpty()) updateBalance.executeBatch();
+            connection.commit();
+            written = seq;
+        } catch (SQLException e) {
+            throw rollback(e); // nothing is cleared, so the next flush writes it all again
+        }
+        pendingTransactions.clear();
+        dirtyAccounts.clear();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flush();
+            connection.close();
+        } catch (SQLException | RuntimeException e) {
+            throw new IOException("Cannot close database", e);
+        }
+    }
+
+    // every stored transaction in ledger order, streamed from the database
+    synchronized void scanLedger(Consumer<Transaction> sink) {
+        long expected = 0;
+        try (ResultSet rs = scanTransactions.executeQuery()) {
+            while (rs.next()) {
+                if (rs.getLong(1) != expected) throw new IllegalStateException("Ledger gap at position " + expected);
+                sink.accept(transaction(rs));
+                expected++;
+            }
+        } catch (SQLException e) {
+            throw failure(e);
+        }
+    }
+
+    /**
+     * Ledger view over the transactions table. Positions are the {@code seq} column;
+     * appends join the pending batch and are read back from it until flushed.
+     */
+    private final class Ledger implements LedgerStore {
+        @Override
+        public long append(Transaction t) {
+            synchronized (JdbcRepository.this) {
+                long position = size;
+                pendingTransactions.add(t);
+                size = position + 1;
+                return position;
+            }
+        }
+
+        @Override
+        public long appendAll(List<Transaction> batch) {
+            synchronized (JdbcRepository.this) {
+                long first = size;
+                pendingTransactions.addAll(batch);
+                size = first + batch.size();
+                return first;
+            }
+        }
+
+        @Override
+        public Transaction get(long position) {
+            synchronized (JdbcRepository.this) {
+                if (position < 0 || position >= size) throw new IndexOutOfBoundsException("Ledger position " + position);
+                if (position >= written) return pendingTransactions.get((int) (position - written));
+                try {
+                    selectTransaction.setLong(1, position);
+                    try (ResultSet rs = selectTransaction.executeQuery()) {
+                        if (!rs.next()) throw new IllegalStateException("Ledger position " + position + " missing from database");
+                        return transaction(rs);
+                    }
+                } catch (SQLException e) {
+                    throw failure(e);
+                }
+            }
+        }
+
+        @Override
+        public long size() {
+            return size;
+        }
+    }
+
+    // ----- Mapping -----
+
+    private static Customer customer(ResultSet rs) throws SQLException {
+        return new Customer(rs.getString(1), rs.getString(2), rs.getString(3), rs.getString(4));
+    }
+
+    // binds customer_id and account_type from owner on, and interest_rate through active from terms on
+    private static void bindAccount(PreparedStatement st, Account acc, int owner, int terms) throws SQLException {
+        boolean savings = acc instanceof SavingsAccount;
+        st.setString(owner, acc.getCustomerId());
+        st.setString(owner + 1, savings ? "Savings" : "Current");
+        st.setBigDecimal(terms, savings ? interestRate((SavingsAccount) acc) : BigDecimal.ZERO);
+        st.setBigDecimal(terms + 1, acc instanceof CurrentAccount
+                ? Money.toBigDecimal(((CurrentAccount) acc).getOverdraftLimitMinor())
+                : BigDecimal.ZERO);
+        st.setObject(terms + 2, acc.getCreatedAt());
+        st.setBoolean(terms + 3, acc.isActive());
+    }
+
+    private static BigDecimal interestRate(SavingsAccount acc) {
+        return BigDecimal.valueOf(acc.getInterestRate()).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static Account account(ResultSet rs) throws SQLException {
+        String id = rs.getString(1);
+        String customerId = rs.getString(2);
+        long balance = Money.ofBigDecimal(rs.getBigDecimal(4));
+        LocalDateTime createdAt = rs.getObject(7, LocalDateTime.class);
+        Account acc = "Savings".equals(rs.getString(3))
+                ? new SavingsAccount(id, customerId, balance, rs.getBigDecimal(5).doubleValue(), createdAt)
+                : new CurrentAccount(id, customerId, balance, Money.ofBigDecimal(rs.getBigDecimal(6)), createdAt);
+        if (!rs.getBoolean(8)) acc.close();
+        return acc;
+    }
+
+    // account_id is the source, or the destination when there is none; to_account_id
+    // holds the destination only when both are set (transfers)
+    private void bindTransaction(long seq, Transaction t) throws SQLException {
+        String from = t.getFromAccountId();
+        insertTransaction.setLong(1, seq);
+        insertTransaction.setString(2, t.getTransactionId());
+        insertTransaction.setString(3, from != null ? from : t.getToAccountId());
+        insertTransaction.setString(4, from != null ? t.getToAccountId() : null);
+        insertTransaction.setString(5, typeName(t.getType()));
+        insertTransaction.setBigDecimal(6, Money.toBigDecimal(t.getAmountMinor()));
+        String note = t.getNote();
+        insertTransaction.setString(7, note != null && note.length() > NOTE_LENGTH ? note.substring(0, NOTE_LENGTH) : note);
+        insertTransaction.setObject(8, t.getTimestamp());
+    }
+
+    private static Transaction transaction(ResultSet rs) throws SQLException {
+        Transaction.Type type = typeOf(rs.getString(5));
+        String account = rs.getString(3);
+        String other = rs.getString(4);
+        boolean credit = type == Transaction.Type.DEPOSIT || type == Transaction.Type.INTEREST;
+        String from = other != null || !credit ? account : null;
+        String to = other != null ? other : credit ? account : null;
+        return new Transaction(rs.getString(2), type, from, to, Money.ofBigDecimal(rs.getBigDecimal(6)),
+                rs.getObject(8, LocalDateTime.class), rs.getString(7));
+    }
+
+    private static String typeName(Transaction.Type type) {
+        switch (type) {
+            case DEPOSIT: return "Deposit";
+            case WITHDRAWAL: return "Withdrawal";
+            case TRANSFER: return "Transfer";
+            case INTEREST: return "Interest";
+            default: throw new IllegalArgumentException("Unknown transaction type: " + type);
+        }
+    }
+
+    private static Transaction.Type typeOf(String name) {
+        switch (name) {
+            case "Deposit": return Transaction.Type.DEPOSIT;
+            case "Withdrawal": return Transaction.Type.WITHDRAWAL;
+            case "Transfer": return Transaction.Type.TRANSFER;
+            case "Interest": return Transaction.Type.INTEREST;
+            default: throw new IllegalStateException("Unknown transaction type in database: " + name);
+        }
+    }
+
+    private static void checkLength(String field, String value, int max, boolean required) {
+        if (value == null) {
+            if (required) throw new IllegalArgumentException(field + " is required");
+        } else if (value.length() > max) {
+            throw new IllegalArgumentException(field + " longer than " + max + " characters: " + value);
+        }
+    }
+
+    // undoes the current database transaction and reports why it failed
+    private IllegalStateException rollback(SQLException e) {
+        try {
+            connection.rollback();
+        } catch (SQLException suppressed) {
+            e.addSuppressed(suppressed);
+        }
+        return failure(e);
+    }
+
+    private static IllegalStateException failure(SQLException e) {
+        return new IllegalStateException("Database access failed: " + e.getMessage(), e);
+    }
+}
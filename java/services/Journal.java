@@ -0,0 +1,438 @@
+package services;
+
+import models.*;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, checksummed binary journal of bank mutations.
+ *
+ * Layout: a header (magic, version, base sequence) followed by records of
+ * [int payload length][int CRC32 of payload][payload], where every payload starts
+ * with its sequence number and record kind. Transaction records carry the balances
+ * of the affected accounts after the operation, so replaying a record is idempotent.
+ * Amounts are minor units (see {@link Money}); version 1 files stored doubles and are
+ * still read.
+ *
+ * With group commit, writers append under a short lock and then call {@link #commit()};
+ * the first thread to reach the fsync makes everything appended so far durable, so
+ * concurrent callers share a single force() instead of paying for one each.
+ */
+class Journal implements Closeable {
+    private static final int MAGIC = 0x424B4A4C; // "BKJL"
+    private static final int VERSION = 2;
+    private static final int VERSION_DOUBLES = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int FRAME_SIZE = 8;
+    private static final int MAX_RECORD_SIZE = 1 << 20;
+
+    private static final byte CUSTOMER = 1;
+    private static final byte ACCOUNT = 2;
+    private static final byte CLOSE = 3;
+    private static final byte TRANSACTION = 4;
+
+    private static final byte SAVINGS = 0;
+    private static final byte CURRENT = 1;
+
+    /**
+     * Receives decoded records during replay.
+     */
+    interface Replayer {
+        void customer(Customer customer);
+        void account(Account account);
+        void close(String accountId);
+        void transaction(Transaction t, long fromBalance, long toBalance);
+    }
+
+    private final Path path;
+    private volatile FileChannel channel;
+    private final boolean groupCommit;
+    private final Object appendLock = new Object();
+    private final Object syncLock = new Object();
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer buf = ByteBuffer.allocate(512);
+    private volatile long appendedSeq;
+    private volatile long durableSeq;
+    private volatile long syncCount;
+    // guarded by appendLock
+    private long endOffset;
+    private long pendingSeq; // last sequence encoded into buf
+    private int recordStart;
+    private IOException failure; // set when a failed write could not be cut off
+
+    private Journal(Path path, FileChannel channel, boolean groupCommit, long lastSeq, long endOffset) {
+        this.path = path;
+        this.channel = channel;
+        this.endOffset = endOffset;
+        this.groupCommit = groupCommit;
+        this.appendedSeq = lastSeq;
+        this.durableSeq = lastSeq;
+        this.pendingSeq = lastSeq;
+    }
+
+    /**
+     * Opens (or creates) a journal for appending. A torn or corrupt tail left by a
+     * crash is cut off so new records follow the last valid one.
+     */
+    static Journal open(Path path, boolean groupCommit, long baseSeq) throws IOException {
+        FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long lastSeq;
+            long end;
+            if (ch.size() < HEADER_SIZE) {
+                writeHeader(ch, baseSeq);
+                lastSeq = baseSeq;
+                end = HEADER_SIZE;
+            } else {
+                long[] scan = scan(path, Long.MAX_VALUE, null);
+                lastSeq = scan[0];
+                end = scan[1];
+            }
+            ch.truncate(end);
+            ch.position(end);
+            return new Journal(path, ch, groupCommit, lastSeq, end);
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Feeds every valid record with a sequence number above {@code afterSeq} to the replayer.
+     * Returns the last valid sequence number in the file.
+     */
+    static long replay(Path path, long afterSeq, Replayer replayer) throws IOException {
+        return scan(path, afterSeq, replayer)[0];
+    }
+
+    Path getPath() { return path; }
+    long lastSeq() { return appendedSeq; }
+    long syncCount() { return syncCount; }
+
+    // file offset just past the last appended record
+    long endOffset() {
+        synchronized (appendLock) {
+            return endOffset;
+        }
+    }
+
+    // a new customer, or the current details of one journaled before
+    long appendCustomer(Customer c) throws IOException {
+        synchronized (appendLock) {
+            begin(CUSTOMER);
+            putString(c.getCustomerId());
+            putString(c.getName());
+            putString(c.getEmail());
+            putString(c.getPhone());
+            end();
+            return flush();
+        }
+    }
+
+    long appendAccount(Account a) throws IOException {
+        synchronized (appendLock) {
+            begin(ACCOUNT);
+            putString(a.getAccountId());
+            putString(a.getCustomerId());
+            if (a instanceof SavingsAccount) {
+                put(SAVINGS);
+                putDouble(((SavingsAccount) a).getInterestRate());
+            } else {
+                put(CURRENT);
+                putLong(((CurrentAccount) a).getOverdraftLimitMinor());
+            }
+            putLong(a.getBalanceMinor());
+            putTime(a.getCreatedAt());
+            end();
+            return flush();
+        }
+    }
+
+    long appendClose(String accountId) throws IOException {
+        synchronized (appendLock) {
+            begin(CLOSE);
+            putString(accountId);
+            end();
+            return flush();
+        }
+    }
+
+    long appendTransaction(Transaction t, long fromBalance, long toBalance) throws IOException {
+        synchronized (appendLock) {
+            encodeTransaction(t, fromBalance, toBalance);
+            return flush();
+        }
+    }
+
+    // appends a batch of transaction records with a single write
+    long appendTransactions(List<Transaction> batch, long[] fromBalances, long[] toBalances) throws IOException {
+        synchronized (appendLock) {
+            for (int i = 0; i < batch.size(); i++) encodeTransaction(batch.get(i), fromBalances[i], toBalances[i]);
+            return flush();
+        }
+    }
+
+    private void encodeTransaction(Transaction t, long fromBalance, long toBalance) {
+        begin(TRANSACTION);
+        putString(t.getTransactionId());
+        put((byte) t.getType().ordinal());
+        putString(t.getFromAccountId());
+        putString(t.getToAccountId());
+        putLong(t.getAmountMinor());
+        putTime(t.getTimestamp());
+        putString(t.getNote());
+        putLong(fromBalance);
+        putLong(toBalance);
+        end();
+    }
+
+    /**
+     * Blocks until every record appended so far is on disk. Without group commit
+     * records are forced as they are appended and this returns immediately.
+     */
+    void commit() throws IOException {
+        if (!groupCommit) return;
+        long target = appendedSeq;
+        if (durableSeq >= target) return;
+        synchronized (syncLock) {
+            if (durableSeq >= target) return; // someone else's fsync covered us
+            long upTo = appendedSeq;
+            channel.force(false);
+            syncCount++;
+            durableSeq = upTo;
+        }
+    }
+
+    /**
+     * Drops every record up to and including {@code seq}, which a snapshot now covers.
+     * {@code offset} is where the record after it starts. The remaining tail is copied
+     * into a fresh file that atomically replaces the journal.
+     */
+    void truncateThrough(long seq, long offset) throws IOException {
+        synchronized (appendLock) {
+            synchronized (syncLock) {
+                FileChannel old = channel;
+                old.force(false);
+                Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+                try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    writeHeader(out, seq);
+                    long pos = offset;
+                    long end = endOffset; // not old.size(): nothing past the last complete record
+                    while (pos < end) pos += old.transferTo(pos, end - pos, out);
+                    out.force(true);
+                }
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                old.close();
+                FileChannel ch = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                endOffset = ch.size();
+                ch.position(endOffset);
+                channel = ch;
+                durableSeq = appendedSeq;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            commit();
+        } finally {
+            channel.close();
+        }
+    }
+
+    // ----- encoding -----
+    private void begin(byte kind) {
+        ensure(FRAME_SIZE + 9);
+        recordStart = buf.position();
+        buf.position(recordStart + FRAME_SIZE);
+        buf.putLong(++pendingSeq);
+        buf.put(kind);
+    }
+
+    private void end() {
+        int len = buf.position() - recordStart - FRAME_SIZE;
+        crc.reset();
+        crc.update(buf.array(), recordStart + FRAME_SIZE, len);
+        buf.putInt(recordStart, len);
+        buf.putInt(recordStart + 4, (int) crc.getValue());
+    }
+
+    // writes every record encoded since the last flush and returns the last sequence
+    private long flush() throws IOException {
+        if (failure != null) {
+            buf.clear();
+            pendingSeq = appendedSeq;
+            throw new IOException("Journal " + path + " is unusable after a failed write", failure);
+        }
+        try {
+            buf.flip();
+            while (buf.hasRemaining()) channel.write(buf);
+            endOffset = channel.position();
+            if (!groupCommit) {
+                channel.force(false);
+                syncCount++;
+                durableSeq = pendingSeq;
+            }
+        } catch (IOException e) {
+            pendingSeq = appendedSeq;
+            discardTornTail(e);
+            throw e;
+        } finally {
+            buf.clear();
+        }
+        appendedSeq = pendingSeq;
+        return pendingSeq;
+    }
+
+    // cuts off whatever part of a failed write reached the file, so the next record
+    // follows the last complete one; if even that fails, no further appends are taken
+    private void discardTornTail(IOException cause) {
+        try {
+            channel.truncate(endOffset);
+            channel.position(endOffset);
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+            failure = cause;
+        }
+    }
+
+    private void ensure(int bytes) {
+        if (buf.remaining() >= bytes) return;
+        ByteBuffer bigger = ByteBuffer.allocate(Math.max(buf.capacity() * 2, buf.position() + bytes));
+        buf.flip();
+        bigger.put(buf);
+        buf = bigger;
+    }
+
+    private void put(byte b) { ensure(1); buf.put(b); }
+    private void putDouble(double d) { ensure(8); buf.putDouble(d); }
+    private void putLong(long v) { ensure(8); buf.putLong(v); }
+
+    private void putTime(LocalDateTime t) {
+        ensure(12);
+        buf.putLong(t.toEpochSecond(ZoneOffset.UTC));
+        buf.putInt(t.getNano());
+    }
+
+    private void putString(String s) {
+        if (s == null) { ensure(4); buf.putInt(-1); return; }
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        ensure(4 + b.length);
+        buf.putInt(b.length);
+        buf.put(b);
+    }
+
+    // ----- decoding -----
+    private static void writeHeader(FileChannel ch, long baseSeq) throws IOException {
+        ByteBuffer h = ByteBuffer.allocate(HEADER_SIZE);
+        h.putInt(MAGIC).putInt(VERSION).putLong(baseSeq).flip();
+        ch.truncate(0);
+        ch.position(0);
+        while (h.hasRemaining()) ch.write(h);
+    }
+
+    // returns {last valid sequence, end offset of the last valid record}
+    private static long[] scan(Path path, long afterSeq, Replayer replayer) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not a bank journal: " + path);
+            int version = in.readInt();
+            if (version != VERSION && version != VERSION_DOUBLES) throw new IOException("Unsupported journal version " + version);
+            long lastSeq = in.readLong();
+            long end = HEADER_SIZE;
+            CRC32 crc = new CRC32();
+            byte[] payload = new byte[512];
+            while (true) {
+                int len, sum;
+                try {
+                    len = in.readInt();
+                    sum = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (len <= 9 || len > MAX_RECORD_SIZE) break;
+                if (payload.length < len) payload = new byte[Math.max(len, payload.length * 2)];
+                try {
+                    in.readFully(payload, 0, len);
+                } catch (EOFException e) {
+                    break; // torn write
+                }
+                crc.reset();
+                crc.update(payload, 0, len);
+                if ((int) crc.getValue() != sum) break;
+                ByteBuffer r = ByteBuffer.wrap(payload, 0, len);
+                long seq = r.getLong();
+                byte kind = r.get();
+                if (replayer != null && seq > afterSeq) decode(kind, r, version, replayer);
+                lastSeq = seq;
+                end += FRAME_SIZE + len;
+            }
+            return new long[] { lastSeq, end };
+        }
+    }
+
+    private static void decode(byte kind, ByteBuffer r, int version, Replayer replayer) throws IOException {
+        switch (kind) {
+            case CUSTOMER:
+                replayer.customer(new Customer(getString(r), getString(r), getString(r), getString(r)));
+                break;
+            case ACCOUNT: {
+                String id = getString(r);
+                String customerId = getString(r);
+                byte type = r.get();
+                double rate = type == SAVINGS ? r.getDouble() : 0;
+                long overdraftLimit = type == SAVINGS ? 0 : getMoney(r, version);
+                long balance = getMoney(r, version);
+                LocalDateTime createdAt = getTime(r);
+                replayer.account(type == SAVINGS
+                        ? new SavingsAccount(id, customerId, balance, rate, createdAt)
+                        : new CurrentAccount(id, customerId, balance, overdraftLimit, createdAt));
+                break;
+            }
+            case CLOSE:
+                replayer.close(getString(r));
+                break;
+            case TRANSACTION: {
+                String id = getString(r);
+                Transaction.Type type = Transaction.Type.values()[r.get()];
+                String from = getString(r);
+                String to = getString(r);
+                long amount = getMoney(r, version);
+                LocalDateTime ts = getTime(r);
+                String note = getString(r);
+                Transaction t = new Transaction(id, type, from, to, amount, ts, note);
+                replayer.transaction(t, getMoney(r, version), getMoney(r, version));
+                break;
+            }
+            default:
+                throw new IOException("Unknown journal record kind " + kind);
+        }
+    }
+
+    private static long getMoney(ByteBuffer r, int version) {
+        return version == VERSION_DOUBLES ? Money.ofDouble(r.getDouble()) : r.getLong();
+    }
+
+    private static LocalDateTime getTime(ByteBuffer r) {
+        return LocalDateTime.ofEpochSecond(r.getLong(), r.getInt(), ZoneOffset.UTC);
+    }
+
+    private static String getString(ByteBuffer r) {
+        int len = r.getInt();
+        if (len < 0) return null;
+        String s = new String(r.array(), r.arrayOffset() + r.position(), len, StandardCharsets.UTF_8);
+        r.position(r.position() + len);
+        return s;
+    }
+}
@@ -0,0 +1,106 @@
+package services;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Concurrent log-linear histogram of nanosecond latencies, in the style of HdrHistogram.
+ *
+ * Values below 64 get a bucket each; above that every power of two is split into 32 equal
+ * buckets, so any recorded value is reported within about 3%. Counts are striped by thread
+ * so concurrent recorders rarely touch the same cache line; reads merge the stripes.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int LINEAR = SUB_COUNT << 1;
+    private static final int MAX_SHIFT = 35;                  // top bucket holds values near 2^41 ns (~37 min)
+    private static final long MAX_VALUE = (2L * SUB_COUNT << MAX_SHIFT) - 1;
+    private static final int BUCKETS = LINEAR + MAX_SHIFT * SUB_COUNT;
+    private static final int SUM = BUCKETS;                   // per-stripe running total after the buckets
+    private static final int STRIDE = BUCKETS + 1;
+
+    private final int stripeMask;
+    private final AtomicLongArray cells;
+
+    public LatencyHistogram() {
+        int stripes = Integer.highestOneBit(Math.max(1, Math.min(8, Runtime.getRuntime().availableProcessors())));
+        stripeMask = stripes - 1;
+        cells = new AtomicLongArray(stripes * STRIDE);
+    }
+
+    public void record(long nanos) {
+        long v = Math.max(0, Math.min(nanos, MAX_VALUE));
+        int base = ((int) Thread.currentThread().getId() & stripeMask) * STRIDE;
+        cells.getAndIncrement(base + bucket(v));
+        cells.getAndAdd(base + SUM, v);
+    }
+
+    public void reset() {
+        for (int i = 0; i < cells.length(); i++) cells.set(i, 0);
+    }
+
+    // a consistent-enough copy: concurrent recording may land on either side of it
+    public Summary summary() {
+        long[] counts = new long[BUCKETS];
+        long sum = 0;
+        for (int base = 0; base < cells.length(); base += STRIDE) {
+            for (int b = 0; b < BUCKETS; b++) counts[b] += cells.get(base + b);
+            sum += cells.get(base + SUM);
+        }
+        return new Summary(counts, sum);
+    }
+
+    static int bucket(long v) {
+        if (v < LINEAR) return (int) v;
+        int shift = (63 - Long.numberOfLeadingZeros(v)) - SUB_BITS;
+        return LINEAR + (shift - 1) * SUB_COUNT + (int) (v >>> shift) - SUB_COUNT;
+    }
+
+    // largest value that falls into bucket b
+    static long highestValue(int b) {
+        if (b < LINEAR) return b;
+        int shift = (b - LINEAR) / SUB_COUNT + 1;
+        long top = (b - LINEAR) % SUB_COUNT + SUB_COUNT;
+        return ((top + 1) << shift) - 1;
+    }
+
+    /**
+     * Merged view of a histogram at one point in time.
+     */
+    public static final class Summary {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+
+        private Summary(long[] counts, long sum) {
+            this.counts = counts;
+            this.sum = sum;
+            long n = 0;
+            for (long c : counts) n += c;
+            this.count = n;
+        }
+
+        public long getCount() { return count; }
+        public long getTotalNanos() { return sum; }
+        public double getMeanNanos() { return count == 0 ? 0 : sum / (double) count; }
+
+        // e.g. 99.9; reports the upper edge of the bucket the percentile falls into
+        public long percentile(double percent) {
+            if (count == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(percent / 100.0 * count));
+            long seen = 0;
+            for (int b = 0; b < counts.length; b++) {
+                seen += counts[b];
+                if (seen >= rank) return highestValue(b);
+            }
+            return highestValue(counts.length - 1);
+        }
+
+        public long getMaxNanos() {
+            for (int b = counts.length - 1; b >= 0; b--) {
+                if (counts[b] != 0) return highestValue(b);
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package services;
+
+import models.Transaction;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Append-only storage for the transaction ledger.
+ * Positions are handed out in append order starting at 0 and never change, so
+ * indexes can refer to a transaction by its position alone. Appends may come from
+ * many threads; reads of positions below {@link #size()} never block.
+ */
+interface LedgerStore extends Closeable {
+    long append(Transaction t);
+
+    // appends the batch contiguously and returns the position of its first entry
+    long appendAll(List<Transaction> batch);
+
+    Transaction get(long position);
+
+    long size();
+
+    @Override
+    default void close() throws IOException {}
+}
@@ -0,0 +1,75 @@
+package services;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size-bounded map that evicts the least recently used entry.
+ * Keys are sharded over independently locked LRU maps so concurrent callers rarely meet;
+ * each shard evicts on its own, so the order is LRU per shard, which is close enough
+ * for a hot-set cache.
+ */
+final class LruCache<K, V> {
+    private final Shard<K, V>[] shards;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    LruCache(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("Cache capacity must be > 0");
+        int n = Integer.highestOneBit(Math.max(1, Math.min(16, capacity / 64)));
+        shards = (Shard<K, V>[]) new Shard<?, ?>[n];
+        for (int i = 0; i < n; i++) shards[i] = new Shard<>(Math.max(1, capacity / n));
+        mask = n - 1;
+    }
+
+    V get(K key) {
+        Shard<K, V> s = shard(key);
+        V v;
+        synchronized (s) {
+            v = s.get(key);
+        }
+        (v != null ? hits : misses).increment();
+        return v;
+    }
+
+    void put(K key, V value) {
+        Shard<K, V> s = shard(key);
+        synchronized (s) {
+            s.put(key, value);
+        }
+    }
+
+    void remove(K key) {
+        Shard<K, V> s = shard(key);
+        synchronized (s) {
+            s.remove(key);
+        }
+    }
+
+    long hits() { return hits.sum(); }
+    long misses() { return misses.sum(); }
+
+    private Shard<K, V> shard(K key) {
+        int h = key.hashCode();
+        return shards[(h ^ (h >>> 16)) & mask];
+    }
+
+    private static final class Shard<K, V> extends LinkedHashMap<K, V> {
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        Shard(int capacity) {
+            super(16, 0.75f, true); // access order
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > capacity;
+        }
+    }
+}
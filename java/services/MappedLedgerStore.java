@@ -0,0 +1,237 @@
+package services;
+
+import models.Transaction;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Off-heap ledger store: one memory-mapped file per column.
+ *
+ * Account ids are interned to int handles, timestamps are kept as epoch seconds plus
+ * nanos (the precision the index and journal use) and amounts in minor units. The first
+ * few short notes are interned too, which covers the handful of fixed notes most
+ * transactions carry; transaction ids and every other note live in a mapped string
+ * heap. A {@link Transaction} object only exists while a caller holds one returned
+ * from {@link #get}.
+ *
+ * The files are working storage for this process and are deleted on close;
+ * durability still comes from the journal and snapshots.
+ */
+class MappedLedgerStore implements LedgerStore {
+    private static final int SEGMENT_BYTES = 1 << 26;
+    // interned notes at most, and the longest one interned
+    private static final int MAX_NOTE_SYMBOLS = 1024;
+    private static final int MAX_NOTE_SYMBOL_LENGTH = 64;
+    private static final int NO_SYMBOL = -1;
+    private static final long NULL_NOTE = Long.MIN_VALUE;
+
+    private final Path directory;
+    private final Column types;
+    private final Column from;
+    private final Column to;
+    private final Column amounts;
+    private final Column times;  // epoch seconds
+    private final Column nanos;
+    private final Column ids;
+    private final Column notes;  // >= 0: string heap offset, < 0: -(symbol + 1), NULL_NOTE: none
+    private final Column heap;   // variable-length strings, never split across segments
+
+    // interned account ids and common notes; heap usage grows with accounts, not transactions
+    private final Map<String, Integer> symbolHandles = new HashMap<>();
+    private volatile String[] symbols = new String[1024];
+    private int noteSymbols;
+
+    private long heapEnd;
+    private volatile long size;
+
+    MappedLedgerStore(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        types = new Column(directory.resolve("type.col"), 1);
+        from = new Column(directory.resolve("from.col"), 4);
+        to = new Column(directory.resolve("to.col"), 4);
+        amounts = new Column(directory.resolve("amount.col"), 8);
+        times = new Column(directory.resolve("time.col"), 8);
+        nanos = new Column(directory.resolve("nanos.col"), 4);
+        ids = new Column(directory.resolve("id.col"), 8);
+        notes = new Column(directory.resolve("note.col"), 8);
+        heap = new Column(directory.resolve("strings.heap"), 1);
+    }
+
+    @Override
+    public synchronized long append(Transaction t) {
+        long i = size;
+        types.putByte(i, (byte) t.getType().ordinal());
+        from.putInt(i, intern(t.getFromAccountId()));
+        to.putInt(i, intern(t.getToAccountId()));
+        amounts.putLong(i, t.getAmountMinor());
+        times.putLong(i, t.getTimestamp().toEpochSecond(ZoneOffset.UTC));
+        nanos.putInt(i, t.getTimestamp().getNano());
+        ids.putLong(i, writeString(t.getTransactionId()));
+        int note = internNote(t.getNote());
+        notes.putLong(i, note != NO_SYMBOL ? -(note + 1L) : t.getNote() == null ? NULL_NOTE : writeString(t.getNote()));
+        size = i + 1; // publish after every column is written
+        return i;
+    }
+
+    @Override
+    public synchronized long appendAll(List<Transaction> batch) {
+        long first = size;
+        for (Transaction t : batch) append(t);
+        return first;
+    }
+
+    @Override
+    public Transaction get(long position) {
+        if (position < 0 || position >= size) throw new IndexOutOfBoundsException("Ledger position " + position);
+        String[] syms = symbols;
+        long note = notes.getLong(position);
+        return new Transaction(
+                readString(ids.getLong(position)),
+                Transaction.Type.values()[types.getByte(position)],
+                symbol(syms, from.getInt(position)),
+                symbol(syms, to.getInt(position)),
+                amounts.getLong(position),
+                LocalDateTime.ofEpochSecond(times.getLong(position), nanos.getInt(position), ZoneOffset.UTC),
+                note == NULL_NOTE ? null : note < 0 ? syms[(int) (-note - 1)] : readString(note));
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (Column c : Arrays.asList(types, from, to, amounts, times, nanos, ids, notes, heap)) c.delete();
+        Files.deleteIfExists(directory);
+    }
+
+    private int intern(String s) {
+        if (s == null) return NO_SYMBOL;
+        Integer h = symbolHandles.get(s);
+        return h != null ? h : addSymbol(s);
+    }
+
+    // a short note while the note table has room; any other note goes to the string heap
+    private int internNote(String s) {
+        if (s == null) return NO_SYMBOL;
+        Integer h = symbolHandles.get(s);
+        if (h != null) return h;
+        if (noteSymbols >= MAX_NOTE_SYMBOLS || s.length() > MAX_NOTE_SYMBOL_LENGTH) return NO_SYMBOL;
+        noteSymbols++;
+        return addSymbol(s);
+    }
+
+    private int addSymbol(String s) {
+        int handle = symbolHandles.size();
+        String[] syms = symbols;
+        if (handle == syms.length) syms = Arrays.copyOf(syms, syms.length << 1);
+        syms[handle] = s;
+        symbols = syms;
+        symbolHandles.put(s, handle);
+        return handle;
+    }
+
+    private static String symbol(String[] syms, int handle) {
+        return handle == NO_SYMBOL ? null : syms[handle];
+    }
+
+    private long writeString(String s) {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        int need = 4 + b.length;
+        if (need > SEGMENT_BYTES) throw new IllegalArgumentException("String too long for ledger store");
+        long segmentLeft = SEGMENT_BYTES - (heapEnd % SEGMENT_BYTES);
+        if (segmentLeft < need) heapEnd += segmentLeft;
+        long offset = heapEnd;
+        heap.putInt(offset, b.length);
+        heap.putBytes(offset + 4, b);
+        heapEnd += need;
+        return offset;
+    }
+
+    private String readString(long offset) {
+        return new String(heap.getBytes(offset + 4, heap.getInt(offset)), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Fixed-width values addressed by index (or raw byte offset for width 1), backed by a
+     * file mapped in fixed-size segments that are added as the column grows.
+     */
+    private static final class Column {
+        private final Path path;
+        private final int width;
+        private final FileChannel channel;
+        private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+
+        Column(Path path, int width) throws IOException {
+            this.path = path;
+            this.width = width;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        void putByte(long i, byte v) { segmentFor(i * width, true).put(offset(i * width), v); }
+        void putInt(long i, int v) { segmentFor(i * width, true).putInt(offset(i * width), v); }
+        void putLong(long i, long v) { segmentFor(i * width, true).putLong(offset(i * width), v); }
+
+        void putBytes(long pos, byte[] b) {
+            ByteBuffer seg = segmentFor(pos, true).duplicate();
+            seg.position(offset(pos));
+            seg.put(b);
+        }
+
+        byte getByte(long i) { return segmentFor(i * width, false).get(offset(i * width)); }
+        int getInt(long i) { return segmentFor(i * width, false).getInt(offset(i * width)); }
+        long getLong(long i) { return segmentFor(i * width, false).getLong(offset(i * width)); }
+
+        byte[] getBytes(long pos, int len) {
+            ByteBuffer seg = segmentFor(pos, false).duplicate();
+            seg.position(offset(pos));
+            byte[] b = new byte[len];
+            seg.get(b);
+            return b;
+        }
+
+        private static int offset(long pos) {
+            return (int) (pos % SEGMENT_BYTES);
+        }
+
+        private MappedByteBuffer segmentFor(long pos, boolean grow) {
+            int s = (int) (pos / SEGMENT_BYTES);
+            MappedByteBuffer[] segs = segments;
+            if (s < segs.length) return segs[s];
+            if (!grow) throw new IndexOutOfBoundsException("Column position " + pos);
+            try {
+                // only the store's appender grows columns, under the store lock
+                segs = Arrays.copyOf(segs, s + 1);
+                for (int k = segments.length; k <= s; k++) {
+                    segs[k] = channel.map(FileChannel.MapMode.READ_WRITE, (long) k * SEGMENT_BYTES, SEGMENT_BYTES);
+                }
+                segments = segs;
+                return segs[s];
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot grow ledger column " + path, e);
+            }
+        }
+
+        void delete() throws IOException {
+            segments = new MappedByteBuffer[0];
+            channel.close();
+            Files.deleteIfExists(path);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package services;
+
+import models.Money;
+import models.Transaction;
+
+/**
+ * A single deposit, withdrawal or transfer submitted as part of a batch.
+ */
+public final class Operation {
+    private final Transaction.Type type;
+    private final String fromAccountId; // null for deposits
+    private final String toAccountId;   // null for withdrawals
+    private final long amount; // minor units
+    private final String note;
+
+    private Operation(Transaction.Type type, String fromAccountId, String toAccountId, long amount, String note) {
+        this.type = type;
+        this.fromAccountId = fromAccountId;
+        this.toAccountId = toAccountId;
+        this.amount = amount;
+        this.note = note;
+    }
+
+    public static Operation deposit(String accountId, double amount, String note) {
+        return new Operation(Transaction.Type.DEPOSIT, null, accountId, Money.ofDouble(amount), note);
+    }
+
+    public static Operation withdraw(String accountId, double amount, String note) {
+        return new Operation(Transaction.Type.WITHDRAWAL, accountId, null, Money.ofDouble(amount), note);
+    }
+
+    public static Operation transfer(String fromAccountId, String toAccountId, double amount, String note) {
+        return new Operation(Transaction.Type.TRANSFER, fromAccountId, toAccountId, Money.ofDouble(amount), note);
+    }
+
+    // an operation for an amount already in minor units
+    static Operation ofMinor(Transaction.Type type, String fromAccountId, String toAccountId, long amount, String note) {
+        return new Operation(type, fromAccountId, toAccountId, amount, note);
+    }
+
+    public Transaction.Type getType() { return type; }
+    public String getFromAccountId() { return fromAccountId; }
+    public String getToAccountId() { return toAccountId; }
+    public long getAmountMinor() { return amount; }
+    public double getAmount() { return Money.toDouble(amount); }
+    public String getNote() { return note; }
+
+    @Override
+    public String toString() {
+        return String.format("Operation{type=%s, from=%s, to=%s, amount=%s, note='%s'}",
+                type, fromAccountId, toAccountId, Money.format(amount), note);
+    }
+}
@@ -0,0 +1,99 @@
+package services;
+
+import models.Money;
+import models.Transaction;
+
+import java.time.LocalDate;
+
+/**
+ * Pre-aggregated activity of one account over a day or a calendar month, read from
+ * {@link Bank#dailySummary} or {@link Bank#monthlySummary} without touching the ledger.
+ *
+ * Credits and debits are kept apart per transaction type, so a transfer in and a transfer
+ * out do not cancel. Balances are the ones implied by the ledger; min and max include the
+ * balance the period opened with. Amounts are in minor units.
+ */
+public class PeriodSummary {
+    private static final int TYPES = Transaction.Type.values().length;
+
+    private final String accountId;
+    private final LocalDate start;
+    private final LocalDate end; // exclusive
+    private final long[] counts;
+    private final long[] credits;
+    private final long[] debits;
+    private final long minBalance;
+    private final long maxBalance;
+    private final long closingBalance;
+
+    PeriodSummary(String accountId, LocalDate start, LocalDate end, long[] counts, long[] credits, long[] debits,
+                  long minBalance, long maxBalance, long closingBalance) {
+        this.accountId = accountId;
+        this.start = start;
+        this.end = end;
+        this.counts = counts;
+        this.credits = credits;
+        this.debits = debits;
+        this.minBalance = minBalance;
+        this.maxBalance = maxBalance;
+        this.closingBalance = closingBalance;
+    }
+
+    // a period without activity: the balance stood at openingBalance throughout
+    static PeriodSummary quiet(String accountId, LocalDate start, LocalDate end, long openingBalance) {
+        return new PeriodSummary(accountId, start, end, new long[TYPES], new long[TYPES], new long[TYPES],
+                openingBalance, openingBalance, openingBalance);
+    }
+
+    public String getAccountId() { return accountId; }
+    public LocalDate getStart() { return start; }
+    public LocalDate getEnd() { return end; }
+
+    public long getCount() {
+        long n = 0;
+        for (long c : counts) n += c;
+        return n;
+    }
+
+    public long getCount(Transaction.Type type) { return counts[type.ordinal()]; }
+    public long getCreditsMinor(Transaction.Type type) { return credits[type.ordinal()]; }
+    public long getDebitsMinor(Transaction.Type type) { return debits[type.ordinal()]; }
+
+    public long getTotalCreditsMinor() {
+        long sum = 0;
+        for (long c : credits) sum = Math.addExact(sum, c);
+        return sum;
+    }
+
+    public long getTotalDebitsMinor() {
+        long sum = 0;
+        for (long d : debits) sum = Math.addExact(sum, d);
+        return sum;
+    }
+
+    public long getOpeningBalanceMinor() {
+        return Math.addExact(Math.subtractExact(closingBalance, getTotalCreditsMinor()), getTotalDebitsMinor());
+    }
+
+    public long getClosingBalanceMinor() { return closingBalance; }
+    public long getMinBalanceMinor() { return minBalance; }
+    public long getMaxBalanceMinor() { return maxBalance; }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("PeriodSummary{account=").append(accountId).append(", ").append(start).append("..").append(end)
+                .append(", opening=").append(Money.format(getOpeningBalanceMinor()))
+                .append(", closing=").append(Money.format(closingBalance))
+                .append(", min=").append(Money.format(minBalance))
+                .append(", max=").append(Money.format(maxBalance));
+        for (Transaction.Type type : Transaction.Type.values()) {
+            int i = type.ordinal();
+            if (counts[i] == 0) continue;
+            sb.append(", ").append(type).append(" x").append(counts[i]);
+            if (credits[i] != 0) sb.append(" +").append(Money.format(credits[i]));
+            if (debits[i] != 0) sb.append(" -").append(Money.format(debits[i]));
+        }
+        return sb.append('}').toString();
+    }
+}
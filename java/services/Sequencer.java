@@ -0,0 +1,202 @@
+package services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Single-writer pipeline for balance-changing operations, in the style of the LMAX
+ * disruptor. Callers claim a sequence number with one CAS, publish their request into
+ * that slot of a ring and wait; one thread takes published requests off the ring in
+ * sequence order and applies every run of consecutive single operations as one
+ * best-effort batch, so a burst from many callers costs one lock pass and one journal
+ * write. Batches submitted whole keep their own mode and run on their own. Each caller
+ * gets only its own outcome: its item of a merged batch, or the failure of its own
+ * operation.
+ *
+ * Closing stops new claims; everything claimed before is still applied.
+ */
+final class Sequencer {
+    /**
+     * Applies a batch and returns its result. It throws only before anything is applied,
+     * so the sequencer can split a failed merged batch and run each part again.
+     */
+    interface Applier {
+        BatchResult apply(List<Operation> operations, BatchMode mode);
+    }
+
+    static final int DEFAULT_CAPACITY = 8192;
+    // single operations merged into one batch at most
+    private static final int MAX_RUN = 1024;
+    // busy-wait before parking only when the writer and its callers can run at the same time
+    private static final int SPINS = Runtime.getRuntime().availableProcessors() > 1 ? 100 : 0;
+
+    private final AtomicReferenceArray<Request> ring;
+    private final int mask;
+    private final Applier applier;
+    private final Thread thread;
+    // next sequence to claim; -count - 1 once closed, count being the number ever claimed
+    private final AtomicLong claim = new AtomicLong();
+    private volatile long consumed; // every sequence below this has been taken off the ring
+    private volatile boolean sleeping;
+
+    Sequencer(int capacity, Applier applier) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) throw new IllegalArgumentException("Capacity must be a power of two");
+        this.ring = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.applier = applier;
+        thread = new Thread(this::run, "bank-sequencer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // applies op after everything sequenced before it; null once closed
+    BatchResult.Item submit(Operation op) {
+        Request r = new Request(Collections.singletonList(op), null);
+        if (!publish(r)) return null;
+        r.await();
+        return r.item;
+    }
+
+    BatchResult submit(List<Operation> operations, BatchMode mode) {
+        Request r = new Request(operations, mode);
+        if (!publish(r)) return null;
+        r.await();
+        return r.result;
+    }
+
+    void close() throws InterruptedException {
+        long c;
+        do {
+            c = claim.get();
+        } while (c >= 0 && !claim.compareAndSet(c, -c - 1));
+        LockSupport.unpark(thread);
+        thread.join();
+    }
+
+    private boolean publish(Request r) {
+        long seq;
+        do {
+            seq = claim.get();
+            if (seq < 0) return false;
+        } while (!claim.compareAndSet(seq, seq + 1));
+        while (seq - consumed >= ring.length()) Thread.yield(); // ring full
+        ring.set(index(seq), r);
+        if (sleeping) LockSupport.unpark(thread);
+        return true;
+    }
+
+    private void run() {
+        List<Request> taken = new ArrayList<>();
+        long next = 0;
+        while (true) {
+            Request r = ring.get(index(next));
+            if (r == null) {
+                long c = claim.get();
+                if (c < 0 && next == -c - 1) return; // closed and drained
+                idle(next);
+                continue;
+            }
+            while (r != null && taken.size() < MAX_RUN) {
+                taken.add(r);
+                ring.set(index(next), null);
+                next++;
+                r = ring.get(index(next));
+            }
+            consumed = next;
+            process(taken);
+            taken.clear();
+        }
+    }
+
+    // spins briefly, then parks until a producer publishes next or the ring is closed
+    private void idle(long next) {
+        for (int i = 0; i < SPINS; i++) {
+            if (ring.get(index(next)) != null) return;
+            Thread.onSpinWait();
+        }
+        sleeping = true;
+        if (ring.get(index(next)) == null && claim.get() >= 0) LockSupport.parkNanos(this, 1_000_000);
+        sleeping = false;
+    }
+
+    private void process(List<Request> taken) {
+        List<Operation> merged = new ArrayList<>();
+        int i = 0;
+        while (i < taken.size()) {
+            Request r = taken.get(i);
+            if (r.mode != null) {
+                apply(taken, i, i + 1, r.operations, r.mode);
+                i++;
+                continue;
+            }
+            int j = i;
+            merged.clear();
+            while (j < taken.size() && taken.get(j).mode == null) merged.add(taken.get(j++).operations.get(0));
+            apply(taken, i, j, merged, BatchMode.BEST_EFFORT);
+            i = j;
+        }
+    }
+
+    // runs one batch for requests [from, to) and hands each its share of the result; when
+    // a merged batch throws, each request runs again alone so only those that fail alone see it
+    private void apply(List<Request> taken, int from, int to, List<Operation> operations, BatchMode mode) {
+        BatchResult result;
+        try {
+            result = applier.apply(operations, mode);
+        } catch (RuntimeException e) {
+            if (to - from > 1) {
+                for (int k = from; k < to; k++) apply(taken, k, k + 1, taken.get(k).operations, BatchMode.BEST_EFFORT);
+                return;
+            }
+            Request r = taken.get(from);
+            r.failure = e;
+            r.complete();
+            return;
+        }
+        for (int k = from; k < to; k++) {
+            Request r = taken.get(k);
+            if (r.mode != null) {
+                r.result = result;
+            } else {
+                r.item = result.getItems().get(k - from);
+            }
+            r.complete();
+        }
+    }
+
+    private int index(long seq) {
+        return (int) (seq & mask);
+    }
+
+    private static final class Request {
+        final List<Operation> operations;
+        final BatchMode mode; // null for a single operation, which may be merged with its neighbours
+        final Thread waiter = Thread.currentThread();
+        BatchResult result;
+        BatchResult.Item item; // a single operation's share of its merged batch
+        RuntimeException failure;
+        volatile boolean done;
+
+        Request(List<Operation> operations, BatchMode mode) {
+            this.operations = operations;
+            this.mode = mode;
+        }
+
+        void complete() {
+            done = true;
+            LockSupport.unpark(waiter);
+        }
+
+        void await() {
+            for (int i = 0; !done; i++) {
+                if (i < SPINS) Thread.onSpinWait();
+                else LockSupport.park(this);
+            }
+            if (failure != null) throw failure;
+        }
+    }
+}
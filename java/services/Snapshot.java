@@ -0,0 +1,224 @@
+package services;
+
+import models.*;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Compact binary image of the bank: customers, accounts with their balances and the ledger.
+ *
+ * The ledger is part of the image because nothing else keeps it across a restart: the
+ * heap and mapped ledger stores are working storage only, and the journal records a
+ * snapshot covers are dropped. Loading therefore still rebuilds the ledger on the heap;
+ * what it saves over Java serialization is the object-stream overhead, not the history.
+ *
+ * Layout: header (magic, version, journal sequence) followed by tagged records and an
+ * end tag with a CRC32 of everything before it. Account ids and notes inside ledger
+ * entries are written once and then referenced by their position in a dictionary.
+ * Amounts are minor units (see {@link Money}); version 1 images stored doubles.
+ * The image is written to a temp file and renamed into place; loading memory-maps it
+ * in windows instead of going through Java serialization. {@link SnapshotWriter} produces it.
+ */
+class Snapshot {
+    static final int MAGIC = 0x424B534E; // "BKSN"
+    static final int VERSION = 2;
+    private static final int VERSION_DOUBLES = 1;
+    private static final int WINDOW = 1 << 28;
+    static final int MAX_DICTIONARY = 1 << 22;
+
+    // string references inside ledger entries
+    static final int REF_NULL = -1;
+    static final int REF_NEW = -2;    // string follows and joins the dictionary
+    static final int REF_INLINE = -3; // string follows, dictionary is full
+
+    static final byte END = 0;
+    static final byte CUSTOMER = 1;
+    static final byte ACCOUNT = 2;
+    static final byte TRANSACTION = 3;
+
+    static final byte SAVINGS = 0;
+    static final byte CURRENT = 1;
+
+    /**
+     * Receives decoded records while a snapshot is loaded.
+     */
+    interface Sink {
+        void customer(Customer customer);
+        void account(Account account);
+        void transaction(Transaction t);
+    }
+
+    private Snapshot() {}
+
+    static boolean isSnapshot(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(path))) {
+            return in.readInt() == MAGIC;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes the image atomically. Only the first {@code transactionCount} ledger entries
+     * are written; reading them never blocks appenders.
+     */
+    static void write(Path target, long journalSeq, Collection<Customer> customers, Collection<Account> accounts,
+                      LedgerStore ledger, long transactionCount) throws IOException {
+        try (SnapshotWriter out = new SnapshotWriter(target, journalSeq)) {
+            for (Customer c : customers) out.customer(c);
+            for (Account a : accounts) out.account(a);
+            for (long i = 0; i < transactionCount; i++) out.transaction(ledger.get(i));
+            out.commit();
+        }
+    }
+
+    /**
+     * Streams the image into the sink and returns the journal sequence it covers.
+     */
+    static long read(Path path, Sink sink) throws IOException {
+        List<String> dictionary = new ArrayList<>();
+        try (MappedInput in = new MappedInput(path)) {
+            if (in.getInt() != MAGIC) throw new IOException("Not a bank snapshot: " + path);
+            int version = in.getInt();
+            if (version != VERSION && version != VERSION_DOUBLES) throw new IOException("Unsupported snapshot version " + version);
+            long journalSeq = in.getLong();
+            while (true) {
+                byte tag = in.get();
+                if (tag == END) break;
+                switch (tag) {
+                    case CUSTOMER:
+                        sink.customer(new Customer(in.getString(), in.getString(), in.getString(), in.getString()));
+                        break;
+                    case ACCOUNT: {
+                        String id = in.getRef(dictionary);
+                        String customerId = in.getString();
+                        byte type = in.get();
+                        double rate = type == SAVINGS ? in.getDouble() : 0;
+                        long overdraftLimit = type == SAVINGS ? 0 : in.getMoney(version);
+                        long balance = in.getMoney(version);
+                        LocalDateTime createdAt = in.getTime();
+                        Account a = type == SAVINGS
+                                ? new SavingsAccount(id, customerId, balance, rate, createdAt)
+                                : new CurrentAccount(id, customerId, balance, overdraftLimit, createdAt);
+                        if (in.get() == 0) a.close();
+                        sink.account(a);
+                        break;
+                    }
+                    case TRANSACTION: {
+                        String id = in.getString();
+                        Transaction.Type type = Transaction.Type.values()[in.get()];
+                        String from = in.getRef(dictionary);
+                        String to = in.getRef(dictionary);
+                        long amount = in.getMoney(version);
+                        LocalDateTime ts = in.getTime();
+                        sink.transaction(new Transaction(id, type, from, to, amount, ts, in.getRef(dictionary)));
+                        break;
+                    }
+                    default:
+                        throw new IOException("Corrupt snapshot: unknown tag " + tag);
+                }
+            }
+            in.verifyChecksum();
+            return journalSeq;
+        }
+    }
+
+    /**
+     * Sequential reader over a memory-mapped file. Files larger than one mapping are
+     * read through consecutive windows; a window is remapped from the current position
+     * whenever a read would run past its end.
+     */
+    private static final class MappedInput implements Closeable {
+        private final FileChannel channel;
+        private final long size;
+        private final CRC32 crc = new CRC32();
+        private MappedByteBuffer window;
+        private long windowStart;
+        private long checked; // bytes fed to the CRC so far
+
+        MappedInput(Path path) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            size = channel.size();
+            map(0);
+        }
+
+        byte get() throws IOException { ensure(1); return window.get(); }
+        int getInt() throws IOException { ensure(4); return window.getInt(); }
+        long getLong() throws IOException { ensure(8); return window.getLong(); }
+        double getDouble() throws IOException { ensure(8); return window.getDouble(); }
+
+        long getMoney(int version) throws IOException {
+            return version == VERSION_DOUBLES ? Money.ofDouble(getDouble()) : getLong();
+        }
+
+        LocalDateTime getTime() throws IOException {
+            return LocalDateTime.ofEpochSecond(getLong(), getInt(), ZoneOffset.UTC);
+        }
+
+        String getString() throws IOException {
+            int len = getInt();
+            if (len < 0) return null;
+            ensure(len);
+            byte[] b = new byte[len];
+            window.get(b);
+            return new String(b, StandardCharsets.UTF_8);
+        }
+
+        String getRef(List<String> dictionary) throws IOException {
+            int ref = getInt();
+            if (ref >= 0) return dictionary.get(ref);
+            if (ref == REF_NULL) return null;
+            String s = getString();
+            if (ref == REF_NEW) dictionary.add(s);
+            return s;
+        }
+
+        // the CRC trailer covers every byte before it
+        void verifyChecksum() throws IOException {
+            long end = windowStart + window.position();
+            updateCrc(end);
+            int expected = getInt();
+            if ((int) crc.getValue() != expected) throw new IOException("Snapshot checksum mismatch");
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (window.remaining() >= bytes) return;
+            long pos = windowStart + window.position();
+            if (pos + bytes > size) throw new EOFException("Truncated snapshot");
+            updateCrc(pos);
+            map(pos);
+        }
+
+        private void updateCrc(long upTo) {
+            if (upTo <= checked) return;
+            ByteBuffer view = window.duplicate();
+            view.position((int) (checked - windowStart));
+            view.limit((int) (upTo - windowStart));
+            crc.update(view);
+            checked = upTo;
+        }
+
+        private void map(long pos) throws IOException {
+            windowStart = pos;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(WINDOW, size - pos));
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
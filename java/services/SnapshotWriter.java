@@ -0,0 +1,124 @@
+package services;
+
+import models.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Streams customers, accounts and transactions into a snapshot file that
+ * {@link Bank#loadFromFile} bulk-loads. Records may come in any order and are written
+ * to a temp file as they arrive; {@link #commit()} seals the file and renames it into
+ * place. Closing without committing discards it.
+ */
+public final class SnapshotWriter implements Closeable {
+    private final Path target;
+    private final Path tmp;
+    private final FileOutputStream file;
+    private final CRC32 crc = new CRC32();
+    private final DataOutputStream out;
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private boolean committed;
+
+    public SnapshotWriter(Path target) throws IOException {
+        this(target, 0);
+    }
+
+    SnapshotWriter(Path target, long journalSeq) throws IOException {
+        this.target = target;
+        this.tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        this.file = new FileOutputStream(tmp.toFile());
+        this.out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(file, crc), 1 << 16));
+        out.writeInt(Snapshot.MAGIC);
+        out.writeInt(Snapshot.VERSION);
+        out.writeLong(journalSeq);
+    }
+
+    public void customer(Customer c) throws IOException {
+        out.writeByte(Snapshot.CUSTOMER);
+        writeString(c.getCustomerId());
+        writeString(c.getName());
+        writeString(c.getEmail());
+        writeString(c.getPhone());
+    }
+
+    public void account(Account a) throws IOException {
+        out.writeByte(Snapshot.ACCOUNT);
+        writeRef(a.getAccountId());
+        writeString(a.getCustomerId());
+        if (a instanceof SavingsAccount) {
+            out.writeByte(Snapshot.SAVINGS);
+            out.writeDouble(((SavingsAccount) a).getInterestRate());
+        } else {
+            out.writeByte(Snapshot.CURRENT);
+            out.writeLong(((CurrentAccount) a).getOverdraftLimitMinor());
+        }
+        out.writeLong(a.getBalanceMinor());
+        writeTime(a.getCreatedAt());
+        out.writeBoolean(a.isActive());
+    }
+
+    public void transaction(Transaction t) throws IOException {
+        out.writeByte(Snapshot.TRANSACTION);
+        writeString(t.getTransactionId());
+        out.writeByte(t.getType().ordinal());
+        writeRef(t.getFromAccountId());
+        writeRef(t.getToAccountId());
+        out.writeLong(t.getAmountMinor());
+        writeTime(t.getTimestamp());
+        writeRef(t.getNote());
+    }
+
+    // writes the end tag and checksum, syncs and atomically replaces the target
+    public void commit() throws IOException {
+        out.writeByte(Snapshot.END);
+        out.flush();
+        int sum = (int) crc.getValue();
+        file.write(new byte[] { (byte) (sum >>> 24), (byte) (sum >>> 16), (byte) (sum >>> 8), (byte) sum });
+        file.getFD().sync();
+        file.close();
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        committed = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (committed) return;
+        file.close();
+        Files.deleteIfExists(tmp);
+    }
+
+    private void writeString(String s) throws IOException {
+        if (s == null) { out.writeInt(-1); return; }
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    private void writeRef(String s) throws IOException {
+        if (s == null) { out.writeInt(Snapshot.REF_NULL); return; }
+        Integer ref = dictionary.get(s);
+        if (ref != null) { out.writeInt(ref); return; }
+        if (dictionary.size() < Snapshot.MAX_DICTIONARY) {
+            dictionary.put(s, dictionary.size());
+            out.writeInt(Snapshot.REF_NEW);
+        } else {
+            out.writeInt(Snapshot.REF_INLINE);
+        }
+        writeString(s);
+    }
+
+    private void writeTime(LocalDateTime t) throws IOException {
+        out.writeLong(t.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(t.getNano());
+    }
+}
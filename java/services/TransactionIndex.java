@@ -0,0 +1,220 @@
+package services;
+
+import models.Transaction;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Per-account secondary index over the ledger.
+ * Every account keeps its own append-only chunked array of ledger positions, so
+ * history, paging and time-range lookups cost O(that account's transactions)
+ * and never take a global lock. Queries walk positions lazily, so a scan holds one
+ * transaction at a time however long the history is.
+ *
+ * Each chunk also checkpoints the account's balance before its first transaction and the
+ * latest timestamp seen up to that transaction, so a balance as of any instant replays at
+ * most one chunk instead of the whole history.
+ */
+class TransactionIndex {
+    private static final int CHUNK_SHIFT = 6;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final LedgerStore ledger;
+    private final ConcurrentHashMap<String, History> byAccount = new ConcurrentHashMap<>();
+
+    TransactionIndex(LedgerStore ledger) {
+        this.ledger = ledger;
+    }
+
+    void add(Transaction t, long position) {
+        long time = epochNanos(t.getTimestamp());
+        long amount = t.getAmountMinor();
+        if (t.getFromAccountId() != null) history(t.getFromAccountId()).append(position, -amount, time);
+        if (t.getToAccountId() != null && !t.getToAccountId().equals(t.getFromAccountId())) {
+            history(t.getToAccountId()).append(position, amount, time);
+        }
+    }
+
+    /**
+     * The balance implied by the account's transactions up to {@code instant}: replayed in
+     * recording order up to the first one stamped after it. Finds the chunk by binary
+     * search over the checkpointed timestamps, which never decrease, then replays at most
+     * {@link #CHUNK_SIZE} transactions.
+     */
+    long balanceAt(String accountId, LocalDateTime instant) {
+        History h = byAccount.get(accountId);
+        if (h == null) return 0;
+        int size = h.size;  // size before the arrays: every checkpoint below it is there
+        long[][] chunks = h.chunks;
+        long[] openings = h.openings;
+        long[] startTimes = h.startTimes;
+        long time = epochNanos(instant);
+        int lo = 0;
+        int hi = size == 0 ? -1 : (size - 1) >>> CHUNK_SHIFT;
+        int c = -1;  // last chunk whose first transaction is not after instant
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (startTimes[mid] <= time) {
+                c = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        if (c < 0) return 0;
+        long balance = openings[c];
+        int end = Math.min(size, (c + 1) << CHUNK_SHIFT);
+        for (int i = c << CHUNK_SHIFT; i < end; i++) {
+            Transaction t = ledger.get(chunks[c][i & CHUNK_MASK]);
+            if (epochNanos(t.getTimestamp()) > time) break;
+            balance += accountId.equals(t.getFromAccountId()) ? -t.getAmountMinor() : t.getAmountMinor();
+        }
+        return balance;
+    }
+
+    int count(String accountId) {
+        History h = byAccount.get(accountId);
+        return h == null ? 0 : h.size;
+    }
+
+    List<Transaction> forAccount(String accountId) {
+        return forAccount(accountId, 0, Integer.MAX_VALUE);
+    }
+
+    List<Transaction> forAccount(String accountId, int offset, int limit) {
+        History h = byAccount.get(accountId);
+        if (h == null) return Collections.emptyList();
+        int size = h.size;
+        long[][] chunks = h.chunks;
+        int end = (int) Math.min(size, (long) offset + limit);
+        List<Transaction> out = new ArrayList<>(Math.max(0, end - offset));
+        for (int i = offset; i < end; i++) out.add(ledger.get(chunks[i >>> CHUNK_SHIFT][i & CHUNK_MASK]));
+        return out;
+    }
+
+    List<Transaction> forAccount(String accountId, LocalDateTime from, LocalDateTime to) {
+        History h = byAccount.get(accountId);
+        if (h == null) return Collections.emptyList();
+        int size = h.size;
+        long[][] chunks = h.chunks;
+        List<Transaction> out = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Transaction t = ledger.get(chunks[i >>> CHUNK_SHIFT][i & CHUNK_MASK]);
+            LocalDateTime ts = t.getTimestamp();
+            if ((from == null || !ts.isBefore(from)) && (to == null || ts.isBefore(to))) out.add(t);
+        }
+        return out;
+    }
+
+    // ----- Queries -----
+
+    // lazy scan bounded by the history as it stands now; cursor as for page()
+    Stream<Transaction> stream(TransactionQuery q, long cursor) {
+        return StreamSupport.stream(new Scan(q, cursor), false);
+    }
+
+    /**
+     * Up to {@code limit} matches starting at {@code cursor}, which is an offset into the
+     * account's history for account queries and a ledger position otherwise.
+     */
+    TransactionPage page(TransactionQuery q, long cursor, int limit) {
+        Scan scan = new Scan(q, cursor);
+        List<Transaction> out = new ArrayList<>(Math.min(limit, 1024));
+        while (out.size() < limit && scan.tryAdvance(out::add)) { }
+        return new TransactionPage(out, scan.next, scan.next < scan.end);
+    }
+
+    private final class Scan extends Spliterators.AbstractSpliterator<Transaction> {
+        private final TransactionQuery query;
+        private final long[][] chunks; // null when scanning the whole ledger
+        private final long end;
+        private long next;
+
+        Scan(TransactionQuery q, long cursor) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            if (cursor < 0) throw new IllegalArgumentException("Cursor must be >= 0");
+            query = q;
+            if (q.getAccountId() == null) {
+                chunks = null;
+                end = ledger.size();
+            } else {
+                History h = byAccount.get(q.getAccountId());
+                end = h == null ? 0 : h.size;  // size before chunks: every slot below it is there
+                chunks = h == null ? null : h.chunks;
+            }
+            next = Math.min(cursor, end);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Transaction> action) {
+            while (next < end) {
+                long i = next++;
+                long position = chunks == null ? i : chunks[(int) (i >>> CHUNK_SHIFT)][(int) (i & CHUNK_MASK)];
+                Transaction t = ledger.get(position);
+                if (query.matches(t)) {
+                    action.accept(t);
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    // timestamps carry no zone; UTC just gives them a fixed scale (good until 2262)
+    private static long epochNanos(LocalDateTime t) {
+        return t.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + t.getNano();
+    }
+
+    private History history(String accountId) {
+        History h = byAccount.get(accountId);
+        return h != null ? h : byAccount.computeIfAbsent(accountId, k -> new History());
+    }
+
+    /**
+     * Append-only history of a single account. Writers serialize on the history
+     * itself; readers take a snapshot of {@code size} and then read the chunks
+     * without locking. Chunks are never moved once filled.
+     */
+    private static final class History {
+        private volatile long[][] chunks = new long[1][];
+        // per chunk: balance before its first transaction, and the latest timestamp up to it
+        private volatile long[] openings = new long[1];
+        private volatile long[] startTimes = new long[1];
+        private volatile int size;
+        private long balance;                  // after the last appended transaction
+        private long latest = Long.MIN_VALUE;  // latest timestamp appended so far
+
+        synchronized void append(long position, long delta, long time) {
+            int i = size;
+            int c = i >>> CHUNK_SHIFT;
+            long[][] cs = chunks;
+            if (c == cs.length) {
+                cs = Arrays.copyOf(cs, cs.length << 1);
+                openings = Arrays.copyOf(openings, cs.length);
+                startTimes = Arrays.copyOf(startTimes, cs.length);
+            }
+            latest = Math.max(latest, time);
+            if (cs[c] == null) {
+                cs[c] = new long[CHUNK_SIZE];
+                openings[c] = balance;
+                startTimes[c] = latest;
+            }
+            cs[c][i & CHUNK_MASK] = position;
+            balance = Math.addExact(balance, delta);
+            chunks = cs;
+            size = i + 1; // publish after the slot is written
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package services;
+
+import models.Transaction;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of a {@link Bank#queryTransactions} scan. Pass {@link #getNextCursor()} back to
+ * continue where this page stopped; the ledger is append-only, so a cursor stays valid and
+ * a later call from the end cursor picks up transactions recorded since.
+ */
+public class TransactionPage {
+    private final List<Transaction> transactions;
+    private final long nextCursor;
+    private final boolean more;
+
+    TransactionPage(List<Transaction> transactions, long nextCursor, boolean more) {
+        this.transactions = Collections.unmodifiableList(transactions);
+        this.nextCursor = nextCursor;
+        this.more = more;
+    }
+
+    public List<Transaction> getTransactions() { return transactions; }
+    public long getNextCursor() { return nextCursor; }
+    // false once the scan reached the end of the history as it stood when the page was read
+    public boolean hasMore() { return more; }
+}
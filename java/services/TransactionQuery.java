@@ -0,0 +1,95 @@
+package services;
+
+import models.Money;
+import models.Transaction;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Immutable filter for {@link Bank#streamTransactions} and {@link Bank#queryTransactions}.
+ * Start from {@link #all()} or {@link #forAccount}, then narrow; every method returns a
+ * new query. Time bounds are {@code [from, to)} and amount bounds are inclusive.
+ */
+public final class TransactionQuery {
+    private static final Set<Transaction.Type> ALL_TYPES = EnumSet.allOf(Transaction.Type.class);
+
+    private final String accountId;     // null scans the whole ledger
+    private final LocalDateTime from;   // null = unbounded
+    private final LocalDateTime to;
+    private final Set<Transaction.Type> types;
+    private final long minAmount;       // minor units
+    private final long maxAmount;
+
+    private TransactionQuery(String accountId, LocalDateTime from, LocalDateTime to,
+                             Set<Transaction.Type> types, long minAmount, long maxAmount) {
+        this.accountId = accountId;
+        this.from = from;
+        this.to = to;
+        this.types = types;
+        this.minAmount = minAmount;
+        this.maxAmount = maxAmount;
+    }
+
+    public static TransactionQuery all() {
+        return new TransactionQuery(null, null, null, ALL_TYPES, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    // transactions where the account is the source or the destination
+    public static TransactionQuery forAccount(String accountId) {
+        if (accountId == null) throw new IllegalArgumentException("Account id must not be null");
+        return new TransactionQuery(accountId, null, null, ALL_TYPES, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    public TransactionQuery from(LocalDateTime from) {
+        return new TransactionQuery(accountId, from, to, types, minAmount, maxAmount);
+    }
+
+    public TransactionQuery to(LocalDateTime to) {
+        return new TransactionQuery(accountId, from, to, types, minAmount, maxAmount);
+    }
+
+    public TransactionQuery between(LocalDateTime from, LocalDateTime to) {
+        return new TransactionQuery(accountId, from, to, types, minAmount, maxAmount);
+    }
+
+    public TransactionQuery ofTypes(Transaction.Type first, Transaction.Type... rest) {
+        return new TransactionQuery(accountId, from, to, EnumSet.of(first, rest), minAmount, maxAmount);
+    }
+
+    public TransactionQuery minAmountMinor(long minAmount) {
+        return new TransactionQuery(accountId, from, to, types, minAmount, maxAmount);
+    }
+
+    public TransactionQuery maxAmountMinor(long maxAmount) {
+        return new TransactionQuery(accountId, from, to, types, minAmount, maxAmount);
+    }
+
+    public TransactionQuery minAmount(double minAmount) { return minAmountMinor(Money.ofDouble(minAmount)); }
+    public TransactionQuery maxAmount(double maxAmount) { return maxAmountMinor(Money.ofDouble(maxAmount)); }
+
+    public String getAccountId() { return accountId; }
+    public LocalDateTime getFrom() { return from; }
+    public LocalDateTime getTo() { return to; }
+    public Set<Transaction.Type> getTypes() { return EnumSet.copyOf(types); }
+    public long getMinAmountMinor() { return minAmount; }
+    public long getMaxAmountMinor() { return maxAmount; }
+
+    // the account constraint is applied by the scan itself; this checks everything else
+    public boolean matches(Transaction t) {
+        if (!types.contains(t.getType())) return false;
+        long amount = t.getAmountMinor();
+        if (amount < minAmount || amount > maxAmount) return false;
+        LocalDateTime ts = t.getTimestamp();
+        return (from == null || !ts.isBefore(from)) && (to == null || ts.isBefore(to));
+    }
+
+    @Override
+    public String toString() {
+        return "TransactionQuery{account=" + (accountId == null ? "*" : accountId)
+                + ", from=" + from + ", to=" + to + ", types=" + types
+                + ", amount=[" + (minAmount == Long.MIN_VALUE ? "-inf" : Money.format(minAmount))
+                + ", " + (maxAmount == Long.MAX_VALUE ? "inf" : Money.format(maxAmount)) + "]}";
+    }
+}
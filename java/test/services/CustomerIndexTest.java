@@ -0,0 +1,77 @@
+package services;
+
+import models.Customer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.Field;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Customer lookups by email and phone: unique emails on create and change, setters that
+ * go through the bank, and banks saved before emails were unique still load.
+ */
+class CustomerIndexTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void lookupsFollowContactChanges() throws Exception {
+        Bank bank = new Bank();
+        Customer ann = bank.createCustomer("Ann", "Ann@Example.com", "+91 99900-11111");
+        Customer bob = bank.createCustomer("Bob", "bob@example.com", "+919990011111");
+
+        assertSame(ann, bank.findCustomerByEmail("ann@example.com"));
+        assertEquals(2, bank.findCustomersByPhone("+91-999-001-1111").size());
+        assertThrows(IllegalArgumentException.class, () -> bank.createCustomer("Dup", "ANN@example.com", "1"));
+
+        bank.updateCustomerContact(ann.getCustomerId(), "ann@new.example.com", "555");
+        assertSame(ann, bank.findCustomerByEmail("ann@new.example.com"));
+        assertEquals(1, bank.findCustomersByPhone("+919990011111").size());
+
+        bob.setEmail("robert@example.com"); // the setter goes through the bank too
+        assertSame(bob, bank.findCustomerByEmail("robert@example.com"));
+        assertThrows(IllegalArgumentException.class, () -> bob.setEmail("ann@new.example.com"));
+        assertEquals("robert@example.com", bob.getEmail());
+        assertEquals(1, bank.searchCustomersByEmail("rob", 10).size());
+    }
+
+    @Test
+    void setterChangesAreJournaled() throws Exception {
+        String path = dir.resolve("bank.dat").toString();
+        Bank bank = new Bank();
+        Customer c = bank.createCustomer("Cat", "cat@example.com", "1");
+        bank.enableJournal(path, true);
+        c.setEmail("cat@new.example.com");
+        c.setPhone("2");
+        bank.closeJournal();
+
+        Bank restored = Bank.loadFromFile(path);
+        assertEquals("2", restored.findCustomerByEmail("cat@new.example.com").getPhone());
+    }
+
+    @Test
+    void sharedEmailsFromOlderFilesStillLoad() throws Exception {
+        Bank bank = new Bank();
+        Customer first = bank.createCustomer("First", "first@example.com", "1");
+        Customer second = bank.createCustomer("Second", "second@example.com", "2");
+        // as saved before emails were unique
+        Field email = Customer.class.getDeclaredField("email");
+        email.setAccessible(true);
+        email.set(second, "FIRST@example.com");
+        String path = dir.resolve("old.dat").toString();
+        bank.saveToFile(path);
+
+        Bank loaded = Bank.loadFromFile(path);
+        Customer holder = loaded.findCustomerByEmail("first@example.com");
+        Customer other = loaded.getCustomer(holder.getCustomerId().equals(first.getCustomerId())
+                ? second.getCustomerId() : first.getCustomerId());
+        assertEquals(other.getCustomerId(), loaded.findCustomersByPhone(other.getPhone()).get(0).getCustomerId());
+
+        // the holder moves on and the other one takes the email over
+        holder.setEmail("holder@example.com");
+        assertSame(other, loaded.findCustomerByEmail("first@example.com"));
+    }
+}
@@ -0,0 +1,102 @@
+package services;
+
+import models.Customer;
+import org.junit.jupiter.api.Test;
+import utils.IdGenerator;
+import utils.Ids;
+import utils.UuidIdGenerator;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link JdbcRepository} against an embedded H2 database: everything written before
+ * {@link Bank#closeRepository} is there when the database is opened again, also when the
+ * cache is far smaller than the bank.
+ */
+class JdbcRepositoryTest {
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    private static String newDatabase() {
+        return "jdbc:h2:mem:jdbc-test-" + DATABASES.incrementAndGet() + ";DB_CLOSE_DELAY=-1";
+    }
+
+    @Test
+    void reopenKeepsBalancesAndTransactions() throws Exception {
+        String url = newDatabase();
+        Bank bank = Bank.openJdbc(url, 4); // a few entries, so most reads miss the cache
+        List<String> ids = TestBanks.openAccounts(bank, 10, 3);
+        TestBanks.randomTraffic(bank, ids, 2_000, 1);
+        Map<String, Long> balances = TestBanks.balances(bank, ids);
+        Map<String, List<String>> history = new HashMap<>();
+        for (String id : ids) history.put(id, TestBanks.transactionIds(bank, id));
+        bank.closeRepository();
+
+        Bank reopened = Bank.openJdbc(url, 4);
+        try {
+            assertEquals(balances, TestBanks.balances(reopened, ids));
+            for (String id : ids) {
+                assertEquals(history.get(id), TestBanks.transactionIds(reopened, id), "transactions of " + id);
+                assertEquals(balances.get(id), TestBanks.ledgerSum(reopened, id), "ledger of " + id);
+            }
+            assertEquals("Customer 7", reopened.findCustomerByEmail("customer7@example.com").getName());
+        } finally {
+            reopened.closeRepository();
+        }
+    }
+
+    @Test
+    void contactChangesOfEvictedCustomersAreStored() throws Exception {
+        String url = newDatabase();
+        Bank bank = Bank.openJdbc(url, 1);
+        Customer first = bank.createCustomer("First", "first@example.com", "1");
+        bank.createCustomer("Second", "second@example.com", "2"); // evicts first
+        first.setEmail("moved@example.com");
+        bank.closeRepository();
+
+        Bank reopened = Bank.openJdbc(url, 1);
+        try {
+            assertEquals(first.getCustomerId(), reopened.findCustomerByEmail("moved@example.com").getCustomerId());
+            assertTrue(reopened.searchCustomersByEmail("first@", 1).isEmpty());
+        } finally {
+            reopened.closeRepository();
+        }
+    }
+
+    @Test
+    void uuidIdsFitTheIdColumns() throws Exception {
+        IdGenerator previous = Ids.getGenerator();
+        Ids.setGenerator(new UuidIdGenerator());
+        try {
+            String url = newDatabase();
+            Bank bank = Bank.openJdbc(url, 8);
+            List<String> ids = TestBanks.openAccounts(bank, 2, 2);
+            TestBanks.randomTraffic(bank, ids, 100, 2);
+            Map<String, Long> balances = TestBanks.balances(bank, ids);
+            bank.closeRepository();
+
+            Bank reopened = Bank.openJdbc(url, 8);
+            assertEquals(balances, TestBanks.balances(reopened, ids));
+            reopened.closeRepository();
+        } finally {
+            Ids.setGenerator(previous);
+        }
+    }
+
+    @Test
+    void overLongFieldsAreRefusedAndLeaveNothingBehind() throws Exception {
+        Bank bank = Bank.openJdbc(newDatabase(), 8);
+        try {
+            String name = "x".repeat(101);
+            assertThrows(IllegalArgumentException.class, () -> bank.createCustomer(name, "long@example.com", "1"));
+            // the email was not kept by the failed create
+            assertEquals("Short", bank.createCustomer("Short", "long@example.com", "1").getName());
+        } finally {
+            bank.closeRepository();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package services;
+
+import models.Account;
+import models.Customer;
+import models.Transaction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The write-ahead journal: a bank that stops without saving comes back from its last
+ * save plus the journal, and a torn tail costs only the record that was being written.
+ */
+class JournalTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void replayRestoresEverythingAfterTheLastSave() throws Exception {
+        String path = dir.resolve("bank.dat").toString();
+        Bank bank = new Bank();
+        List<String> ids = TestBanks.openAccounts(bank, 3, 2);
+        bank.enableJournal(path, true);
+        // journaled only: new customers and accounts, traffic, a contact change and a close
+        ids.addAll(TestBanks.openAccounts(bank, 3, 2, 2));
+        TestBanks.randomTraffic(bank, ids, 1_000, 3);
+        Customer moved = bank.findCustomerByEmail("customer1@example.com");
+        bank.updateCustomerContact(moved.getCustomerId(), "moved@example.com", "123");
+        String closed = ids.get(0);
+        bank.closeAccount(closed);
+
+        // no save and no close: what is on disk is what a crash would leave
+        Bank restored = Bank.loadFromFile(path);
+        assertEquals(TestBanks.balances(bank, ids), TestBanks.balances(restored, ids));
+        for (String id : ids) assertEquals(TestBanks.transactionIds(bank, id), TestBanks.transactionIds(restored, id));
+        assertEquals(moved.getCustomerId(), restored.findCustomerByEmail("moved@example.com").getCustomerId());
+        assertFalse(restored.getAccount(closed).isActive());
+        bank.closeJournal();
+    }
+
+    @Test
+    void tornTailIsCutOffAndLaterRecordsSurvive() throws Exception {
+        String path = dir.resolve("bank.dat").toString();
+        Bank bank = new Bank();
+        List<String> ids = TestBanks.openAccounts(bank, 2, 2);
+        bank.enableJournal(path, false);
+        TestBanks.randomTraffic(bank, ids, 200, 4);
+        Map<String, Long> before = TestBanks.balances(bank, ids);
+        bank.closeJournal();
+
+        // half a record: a length and checksum with no payload behind them
+        Files.write(Path.of(path + ".journal"), new byte[] {0, 0, 0, 64, 1, 2, 3, 4, 5}, StandardOpenOption.APPEND);
+
+        Bank restored = Bank.loadFromFile(path);
+        assertEquals(before, TestBanks.balances(restored, ids));
+        restored.enableJournal(path, false);
+        restored.depositMinor(ids.get(1), 12_345, "after the crash");
+        restored.closeJournal();
+
+        Bank again = Bank.loadFromFile(path);
+        assertEquals(before.get(ids.get(1)) + 12_345, again.getAccount(ids.get(1)).getBalanceMinor());
+    }
+
+    @Test
+    void journalReopenedAfterATornWriteAppendsBehindTheLastRecord() throws IOException {
+        Path file = dir.resolve("raw.journal");
+        Journal journal = Journal.open(file, false, 0);
+        journal.appendClose("A");
+        journal.close();
+        Files.write(file, new byte[] {0, 0, 0, 64, 9, 9}, StandardOpenOption.APPEND);
+
+        Journal reopened = Journal.open(file, false, 0);
+        assertEquals(1, reopened.lastSeq());
+        reopened.appendClose("B");
+        reopened.close();
+
+        StringBuilder closed = new StringBuilder();
+        long last = Journal.replay(file, 0, new Journal.Replayer() {
+            @Override public void customer(Customer customer) {}
+            @Override public void account(Account account) {}
+            @Override public void close(String accountId) { closed.append(accountId); }
+            @Override public void transaction(Transaction t, long fromBalance, long toBalance) {}
+        });
+        assertEquals(2, last);
+        assertEquals("AB", closed.toString());
+    }
+}
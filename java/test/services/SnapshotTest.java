@@ -0,0 +1,106 @@
+package services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Binary snapshots: they drop the journal records they cover, load back to the same bank,
+ * and stay consistent while writers keep going.
+ */
+class SnapshotTest {
+    private static final int JOURNAL_HEADER = 16;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void snapshotTruncatesTheJournalAndLoadsBack() throws Exception {
+        String path = dir.resolve("bank.dat").toString();
+        Path journal = Path.of(path + ".journal");
+        Bank bank = new Bank();
+        List<String> ids = TestBanks.openAccounts(bank, 4, 2);
+        bank.enableJournal(path, true);
+        TestBanks.randomTraffic(bank, ids, 500, 5);
+        assertTrue(Files.size(journal) > JOURNAL_HEADER);
+
+        bank.writeSnapshot(path);
+        assertEquals(JOURNAL_HEADER, Files.size(journal), "records covered by the snapshot are dropped");
+        TestBanks.randomTraffic(bank, ids, 100, 6); // after the snapshot: journal only
+        bank.closeJournal();
+
+        Bank restored = Bank.loadFromFile(path);
+        assertEquals(TestBanks.balances(bank, ids), TestBanks.balances(restored, ids));
+        for (String id : ids) assertEquals(TestBanks.transactionIds(bank, id), TestBanks.transactionIds(restored, id));
+        assertEquals("Customer 2", restored.findCustomerByEmail("customer2@example.com").getName());
+    }
+
+    @Test
+    void snapshotWithItsJournalMatchesTheBankUnderConcurrentWriters() throws Exception {
+        String path = dir.resolve("bank.dat").toString();
+        Bank bank = new Bank();
+        List<String> ids = TestBanks.openAccounts(bank, 500, 4);
+        bank.enableJournal(path, true);
+        underLoad(bank, ids, () -> bank.writeSnapshot(path));
+        bank.closeJournal();
+
+        Bank restored = Bank.loadFromFile(path);
+        assertEquals(TestBanks.balances(bank, ids), TestBanks.balances(restored, ids));
+    }
+
+    @Test
+    void snapshotElsewhereIsConsistentOnItsOwn() throws Exception {
+        Bank bank = new Bank();
+        List<String> ids = TestBanks.openAccounts(bank, 500, 4);
+        bank.enableJournal(dir.resolve("live.dat").toString(), true);
+        String copy = dir.resolve("copy.dat").toString();
+        underLoad(bank, ids, () -> bank.writeSnapshot(copy));
+        bank.closeJournal();
+
+        // no journal is replayed over this image, so every balance must match its ledger
+        Bank restored = Bank.loadFromFile(copy);
+        Map<String, Long> balances = TestBanks.balances(restored, ids);
+        for (String id : ids) assertEquals(TestBanks.ledgerSum(restored, id), balances.get(id), "account " + id);
+    }
+
+    private interface Snapshotter {
+        void write() throws Exception;
+    }
+
+    // writes snapshots while four threads keep depositing
+    private static void underLoad(Bank bank, List<String> ids, Snapshotter snapshotter) throws Exception {
+        AtomicBoolean stop = new AtomicBoolean();
+        List<Thread> writers = new ArrayList<>();
+        List<Throwable> errors = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            SplittableRandom random = new SplittableRandom(t);
+            Thread writer = new Thread(() -> {
+                try {
+                    while (!stop.get()) bank.depositMinor(ids.get(random.nextInt(ids.size())), 1 + random.nextInt(1_000), null);
+                } catch (Throwable e) {
+                    synchronized (errors) {
+                        errors.add(e);
+                    }
+                }
+            });
+            writer.start();
+            writers.add(writer);
+        }
+        try {
+            for (int i = 0; i < 20; i++) snapshotter.write();
+        } finally {
+            stop.set(true);
+            for (Thread writer : writers) writer.join();
+        }
+        assertTrue(errors.isEmpty(), () -> "writer failed: " + errors);
+    }
+}
@@ -0,0 +1,99 @@
+package services;
+
+import exceptions.EntityNotFoundException;
+import exceptions.InsufficientFundsException;
+import models.Account;
+import models.Customer;
+import models.Transaction;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Shared set-up for the bank tests: a few customers with a mix of accounts, seeded
+ * traffic over them, and the views the tests compare.
+ */
+final class TestBanks {
+    private TestBanks() {}
+
+    // customers*perCustomer accounts, alternating savings and current, each opened with 1000.00
+    static List<String> openAccounts(Bank bank, int customers, int perCustomer) throws EntityNotFoundException {
+        return openAccounts(bank, 0, customers, perCustomer);
+    }
+
+    // as above for customers numbered from firstCustomer, so a bank can be grown in steps
+    static List<String> openAccounts(Bank bank, int firstCustomer, int customers, int perCustomer) throws EntityNotFoundException {
+        List<String> ids = new ArrayList<>();
+        for (int i = firstCustomer; i < firstCustomer + customers; i++) {
+            Customer c = bank.createCustomer("Customer " + i, "customer" + i + "@example.com", String.format("9%09d", i));
+            for (int k = 0; k < perCustomer; k++) {
+                Account a = k % 2 == 0
+                        ? bank.createSavingsAccount(c.getCustomerId(), 1_000, 3.0)
+                        : bank.createCurrentAccount(c.getCustomerId(), 1_000, 500);
+                ids.add(a.getAccountId());
+            }
+        }
+        return ids;
+    }
+
+    // deposits, withdrawals, transfers and small batches picked by seed; refused ones are skipped
+    static void randomTraffic(Bank bank, List<String> ids, int operations, long seed) throws EntityNotFoundException {
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < operations; i++) {
+            String a = ids.get(random.nextInt(ids.size()));
+            String b = ids.get(random.nextInt(ids.size()));
+            long amount = 1 + random.nextInt(50_000);
+            try {
+                switch (random.nextInt(4)) {
+                    case 0:
+                        bank.depositMinor(a, amount, "deposit " + i);
+                        break;
+                    case 1:
+                        bank.withdrawMinor(a, amount, null);
+                        break;
+                    case 2:
+                        if (!a.equals(b)) bank.transferMinor(a, b, amount, "transfer " + i);
+                        break;
+                    default:
+                        List<Operation> batch = new ArrayList<>();
+                        batch.add(Operation.deposit(a, amount / 100.0, "batch"));
+                        if (!a.equals(b)) batch.add(Operation.transfer(b, a, amount / 200.0, "batch"));
+                        bank.applyBatch(batch, BatchMode.BEST_EFFORT);
+                }
+            } catch (InsufficientFundsException refused) {
+                // part of the traffic
+            }
+        }
+    }
+
+    static Map<String, Long> balances(Bank bank, List<String> ids) throws EntityNotFoundException {
+        Map<String, Long> out = new HashMap<>();
+        for (String id : ids) out.put(id, bank.getAccount(id).getBalanceMinor());
+        return out;
+    }
+
+    static long total(Bank bank, List<String> ids) throws EntityNotFoundException {
+        long sum = 0;
+        for (String id : ids) sum += bank.getAccount(id).getBalanceMinor();
+        return sum;
+    }
+
+    // the balance the account's transactions add up to
+    static long ledgerSum(Bank bank, String accountId) {
+        long sum = 0;
+        for (Transaction t : bank.listTransactionsForAccount(accountId)) {
+            if (accountId.equals(t.getToAccountId())) sum += t.getAmountMinor();
+            if (accountId.equals(t.getFromAccountId())) sum -= t.getAmountMinor();
+        }
+        return sum;
+    }
+
+    static List<String> transactionIds(Bank bank, String accountId) {
+        List<String> out = new ArrayList<>();
+        for (Transaction t : bank.listTransactionsForAccount(accountId)) out.add(t.getTransactionId());
+        return out;
+    }
+}
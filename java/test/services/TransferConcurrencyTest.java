@@ -0,0 +1,67 @@
+package services;
+
+import exceptions.InsufficientFundsException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Concurrent transfers between a few hot accounts, through the account locks and through
+ * the sequencer: no money appears or vanishes and every balance matches its ledger.
+ */
+class TransferConcurrencyTest {
+    private static final int THREADS = 8;
+    private static final int TRANSFERS_PER_THREAD = 5_000;
+
+    @Test
+    void lockedTransfersConserveMoney() throws Exception {
+        run(false);
+    }
+
+    @Test
+    void sequencedTransfersConserveMoney() throws Exception {
+        run(true);
+    }
+
+    private static void run(boolean sequenced) throws Exception {
+        Bank bank = new Bank();
+        List<String> ids = TestBanks.openAccounts(bank, 4, 4);
+        long before = TestBanks.total(bank, ids);
+        if (sequenced) bank.startSequencer();
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> errors = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            SplittableRandom random = new SplittableRandom(t);
+            Thread thread = new Thread(() -> {
+                try {
+                    for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                        String from = ids.get(random.nextInt(ids.size()));
+                        String to = ids.get(random.nextInt(ids.size()));
+                        if (from.equals(to)) continue;
+                        try {
+                            bank.transferMinor(from, to, 1 + random.nextInt(20_000), null);
+                        } catch (InsufficientFundsException refused) {
+                            // part of the load
+                        }
+                    }
+                } catch (Throwable e) {
+                    synchronized (errors) {
+                        errors.add(e);
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) thread.join();
+        if (sequenced) bank.stopSequencer();
+
+        assertTrue(errors.isEmpty(), () -> "transfer failed: " + errors);
+        assertEquals(before, TestBanks.total(bank, ids));
+        for (String id : ids) assertEquals(TestBanks.ledgerSum(bank, id), bank.getAccount(id).getBalanceMinor(), "account " + id);
+    }
+}
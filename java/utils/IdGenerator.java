@@ -0,0 +1,15 @@
+package utils;
+
+/**
+ * Source of entity ids. Implementations must be thread-safe and never repeat an id.
+ */
+public interface IdGenerator {
+    String nextId();
+
+    /**
+     * Told about an id already in use, e.g. one read back from a file written by an
+     * earlier run, so it is never handed out again. Generators whose ids cannot repeat
+     * across runs may ignore it.
+     */
+    default void observe(String id) {}
+}
@@ -0,0 +1,28 @@
+package utils;
+
+/**
+ * Process-wide id source for customers, accounts and transactions.
+ * Defaults to Snowflake ids for the node given by the {@code bank.node} system
+ * property (0 if unset); swap in another generator before creating entities.
+ */
+public final class Ids {
+    private static volatile IdGenerator generator = new SnowflakeIdGenerator(Integer.getInteger("bank.node", 0));
+
+    private Ids() {}
+
+    public static String next() {
+        return generator.nextId();
+    }
+
+    // an id read back from storage; see IdGenerator#observe
+    public static void observe(String id) {
+        generator.observe(id);
+    }
+
+    public static IdGenerator getGenerator() { return generator; }
+
+    public static void setGenerator(IdGenerator idGenerator) {
+        if (idGenerator == null) throw new IllegalArgumentException("Id generator cannot be null");
+        generator = idGenerator;
+    }
+}
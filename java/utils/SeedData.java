@@ -1,10 +1,18 @@
 package utils;
 
 import services.Bank;
+import services.BatchMode;
+import services.Operation;
 import models.Account;
 import models.Customer;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
 public class SeedData {
+    private static final int BATCH_SIZE = 10_000;
+
     public static void seed(Bank bank) {
         try {
             Customer c1 = bank.createCustomer("Aisha Khan", "aisha@example.com", "9990011111");
@@ -21,4 +29,53 @@ public class SeedData {
             System.err.println("Seed data error: " + e.getMessage());
         }
     }
+
+    /**
+     * Sized dataset for benchmarks: {@code customers} customers with one savings account and
+     * {@code accountsPerCustomer - 1} current accounts each, then about {@code transactionsPerAccount}
+     * deposits, withdrawals and transfers per account, applied in batches. The same seed always
+     * produces the same amounts and pattern of activity. Returns the ids of the accounts created.
+     */
+    public static List<String> seed(Bank bank, int customers, int accountsPerCustomer, int transactionsPerAccount, long seed) {
+        if (customers < 0 || accountsPerCustomer < 1 || transactionsPerAccount < 0) {
+            throw new IllegalArgumentException("Sizes must be >= 0 and accountsPerCustomer >= 1");
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        List<String> accountIds = new ArrayList<>(customers * accountsPerCustomer);
+        try {
+            for (int i = 0; i < customers; i++) {
+                Customer c = bank.createCustomer("Customer " + i, "customer" + i + "@example.com",
+                        String.format("9%09d", i));
+                accountIds.add(bank.createSavingsAccount(c.getCustomerId(), 1000 + random.nextInt(100_000), 2.5 + random.nextInt(4)).getAccountId());
+                for (int k = 1; k < accountsPerCustomer; k++) {
+                    accountIds.add(bank.createCurrentAccount(c.getCustomerId(), random.nextInt(50_000), 1000).getAccountId());
+                }
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Seed data error: " + e.getMessage(), e);
+        }
+
+        long total = (long) accountIds.size() * transactionsPerAccount;
+        List<Operation> batch = new ArrayList<>(BATCH_SIZE);
+        for (long n = 0; n < total; n++) {
+            String account = accountIds.get(random.nextInt(accountIds.size()));
+            double amount = 1 + random.nextInt(50_000) / 100.0;
+            int kind = random.nextInt(10);
+            if (kind < 4) {
+                batch.add(Operation.deposit(account, amount, "Seed deposit"));
+            } else if (kind < 6) {
+                batch.add(Operation.withdraw(account, amount, "Seed withdrawal"));
+            } else {
+                String other = accountIds.get(random.nextInt(accountIds.size()));
+                if (other.equals(account)) batch.add(Operation.deposit(account, amount, "Seed deposit"));
+                else batch.add(Operation.transfer(account, other, amount, "Seed transfer"));
+            }
+            if (batch.size() == BATCH_SIZE) {
+                bank.applyBatch(batch, BatchMode.BEST_EFFORT); // overdrawn withdrawals are simply skipped
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) bank.applyBatch(batch, BatchMode.BEST_EFFORT);
+        return accountIds;
+    }
 }
@@ -0,0 +1,97 @@
+package utils;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake-style 64-bit ids: 41 bits of milliseconds since 2024-01-01 UTC, 10 bits
+ * of node id and a 12-bit per-millisecond sequence. Ids from one node are strictly
+ * increasing; ids from different nodes never collide. A fresh generator only knows the
+ * ids it hands out itself, so ids of its node read back from storage are passed to
+ * {@link #observe}: after a restart with the clock stepped back, or after a run that
+ * borrowed milliseconds ahead of the clock, it keeps counting past them.
+ *
+ * The string form is the id in 13 Crockford base32 digits, so string order matches
+ * numeric (and therefore time) order and map keys stay short.
+ */
+public class SnowflakeIdGenerator implements IdGenerator {
+    private static final long EPOCH_MILLIS = 1_704_067_200_000L;
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final char[] DIGITS = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int STRING_LENGTH = 13;
+    private static final int[] VALUES = new int['Z' + 1];
+
+    static {
+        Arrays.fill(VALUES, -1);
+        for (int i = 0; i < DIGITS.length; i++) VALUES[DIGITS[i]] = i;
+    }
+
+    private final long node;
+    // (millis since epoch << SEQUENCE_BITS) | sequence of the last id handed out
+    private final AtomicLong last = new AtomicLong();
+
+    public SnowflakeIdGenerator(int node) {
+        if (node < 0 || node > MAX_NODE) throw new IllegalArgumentException("Node id must be in [0, " + MAX_NODE + "]");
+        this.node = node;
+    }
+
+    public long nextLong() {
+        while (true) {
+            long prev = last.get();
+            long now = System.currentTimeMillis() - EPOCH_MILLIS;
+            long prevMillis = prev >>> SEQUENCE_BITS;
+            long next;
+            if (now > prevMillis) {
+                next = now << SEQUENCE_BITS;
+            } else if ((prev & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                next = prev + 1; // same millisecond, or the clock stepped back: keep counting
+            } else {
+                next = (prevMillis + 1) << SEQUENCE_BITS; // sequence exhausted: borrow the next millisecond
+            }
+            if (last.compareAndSet(prev, next)) {
+                return ((next >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS))
+                        | (node << SEQUENCE_BITS)
+                        | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    @Override
+    public String nextId() {
+        return toString(nextLong());
+    }
+
+    // ids of other nodes and strings that are not Snowflake ids are ignored
+    @Override
+    public void observe(String id) {
+        long value = parse(id);
+        if (value < 0 || ((value >>> SEQUENCE_BITS) & MAX_NODE) != node) return;
+        long stamp = ((value >>> (NODE_BITS + SEQUENCE_BITS)) << SEQUENCE_BITS) | (value & SEQUENCE_MASK);
+        last.accumulateAndGet(stamp, Math::max);
+    }
+
+    // the id of a string written by toString, or -1
+    public static long parse(String s) {
+        if (s == null || s.length() != STRING_LENGTH) return -1;
+        long id = 0;
+        for (int i = 0; i < STRING_LENGTH; i++) {
+            char ch = s.charAt(i);
+            int digit = ch < VALUES.length ? VALUES[ch] : -1;
+            if (digit < 0 || i == 0 && digit > 7) return -1; // 13 digits carry 65 bits; ids use 63
+            id = (id << 5) | digit;
+        }
+        return id;
+    }
+
+    public static String toString(long id) {
+        char[] out = new char[STRING_LENGTH];
+        for (int i = STRING_LENGTH - 1; i >= 0; i--) {
+            out[i] = DIGITS[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(out);
+    }
+}
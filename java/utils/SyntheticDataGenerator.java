@@ -0,0 +1,511 @@
+package utils;
+
+import exceptions.InsufficientFundsException;
+import models.*;
+import services.Bank;
+import services.BatchMode;
+import services.Operation;
+import services.SnapshotWriter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+/**
+ * Deterministic synthetic load for capacity planning: millions of customers and accounts
+ * and a skewed stream of deposits, withdrawals and transfers.
+ *
+ * Account popularity follows a Zipf distribution, so a few hot accounts see most of the
+ * traffic. Bursts interrupt the stream: one account pays out to, or collects from, many
+ * others at a multiple of the base rate, like a payroll run. The stream is cut into
+ * partitions of {@link #partitionSize} operations, each generated from its own split of
+ * the seed, so partitions can be produced in parallel and the same settings always give
+ * the same operations.
+ *
+ * The data can be applied to a live {@link Bank} from many threads, which reproduces
+ * contention on hot accounts, or written as a snapshot that {@link Bank#loadFromFile}
+ * bulk-loads.
+ */
+public class SyntheticDataGenerator {
+    private static final long START_MILLIS = LocalDateTime.of(2025, 1, 1, 0, 0).toInstant(ZoneOffset.UTC).toEpochMilli();
+    private static final long STRIDE_PRIME = 1_000_000_007L;
+    private static final long OVERDRAFT_LIMIT = 100_000;    // current accounts, minor units
+    private static final double AMOUNT_MU = Math.log(2500); // median amount 25.00
+    private static final double AMOUNT_SIGMA = 1.2;
+
+    private final long seed;
+    private int customers = 1000;
+    private int accountsPerCustomer = 2;
+    private long transactions = 10_000;
+    private double zipfExponent = 1.1;
+    private double burstProbability = 0.0005; // chance that an operation starts a burst
+    private int burstLength = 500;
+    private double burstRateFactor = 20;
+    private long meanGapMillis = 50;
+    private int partitionSize = 1 << 16;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private int batchSize = 1;
+
+    public SyntheticDataGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    // ----- Settings -----
+    public SyntheticDataGenerator customers(int customers) {
+        if (customers < 1) throw new IllegalArgumentException("Need at least one customer");
+        this.customers = customers;
+        return this;
+    }
+
+    public SyntheticDataGenerator accountsPerCustomer(int accountsPerCustomer) {
+        if (accountsPerCustomer < 1) throw new IllegalArgumentException("Need at least one account per customer");
+        this.accountsPerCustomer = accountsPerCustomer;
+        return this;
+    }
+
+    public SyntheticDataGenerator transactions(long transactions) {
+        if (transactions < 0) throw new IllegalArgumentException("Transactions must be >= 0");
+        this.transactions = transactions;
+        return this;
+    }
+
+    // 0 is uniform; around 1 a handful of accounts dominate
+    public SyntheticDataGenerator zipfExponent(double zipfExponent) {
+        if (zipfExponent < 0) throw new IllegalArgumentException("Zipf exponent must be >= 0");
+        this.zipfExponent = zipfExponent;
+        return this;
+    }
+
+    public SyntheticDataGenerator bursts(double probability, int length, double rateFactor) {
+        if (probability < 0 || probability > 1 || length < 1 || rateFactor < 1) {
+            throw new IllegalArgumentException("Burst probability must be in [0, 1], length >= 1 and rate factor >= 1");
+        }
+        this.burstProbability = probability;
+        this.burstLength = length;
+        this.burstRateFactor = rateFactor;
+        return this;
+    }
+
+    // average time between operations outside bursts; only used for timestamps in files
+    public SyntheticDataGenerator meanGapMillis(long meanGapMillis) {
+        if (meanGapMillis < 0) throw new IllegalArgumentException("Gap must be >= 0");
+        this.meanGapMillis = meanGapMillis;
+        return this;
+    }
+
+    // part of the seed: a different partition size gives a different stream
+    public SyntheticDataGenerator partitionSize(int partitionSize) {
+        if (partitionSize < 1) throw new IllegalArgumentException("Partition size must be >= 1");
+        this.partitionSize = partitionSize;
+        return this;
+    }
+
+    public SyntheticDataGenerator parallelism(int parallelism) {
+        if (parallelism < 1) throw new IllegalArgumentException("Parallelism must be >= 1");
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    // operations per Bank call when applying to a bank; 1 uses the single-operation API
+    public SyntheticDataGenerator batchSize(int batchSize) {
+        if (batchSize < 1) throw new IllegalArgumentException("Batch size must be >= 1");
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    public int accountCount() {
+        return Math.multiplyExact(customers, accountsPerCustomer);
+    }
+
+    public int partitionCount() {
+        return (int) ((transactions + partitionSize - 1) / partitionSize);
+    }
+
+    // ----- Feeding a bank -----
+    public String[] populate(Bank bank) {
+        String[] accountIds = createAccounts(bank);
+        applyTransactions(bank, accountIds);
+        return accountIds;
+    }
+
+    /**
+     * Creates every customer and account in parallel. Returns the account ids indexed the way
+     * the transaction stream refers to them.
+     */
+    public String[] createAccounts(Bank bank) {
+        String[] accountIds = new String[accountCount()];
+        run(() -> IntStream.range(0, customers).parallel().forEach(c -> {
+            Customer customer = bank.createCustomer(customerName(c), customerEmail(c), customerPhone(c));
+            try {
+                for (int k = 0; k < accountsPerCustomer; k++) {
+                    int j = c * accountsPerCustomer + k;
+                    Account acc = k == 0
+                            ? bank.createSavingsAccount(customer.getCustomerId(), Money.toDouble(initialBalance(j)), interestRate(j))
+                            : bank.createCurrentAccount(customer.getCustomerId(), Money.toDouble(initialBalance(j)), Money.toDouble(OVERDRAFT_LIMIT));
+                    accountIds[j] = acc.getAccountId();
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException("Cannot create accounts for customer " + c, e);
+            }
+        }));
+        return accountIds;
+    }
+
+    /**
+     * Applies the transaction stream, one partition per task, on {@link #parallelism} threads.
+     * Each partition's operations are always the same; how partitions interleave is up to the
+     * scheduler. Operations the bank rejects for lack of funds are skipped. Returns the number
+     * of operations applied.
+     */
+    public long applyTransactions(Bank bank, String[] accountIds) {
+        if (accountIds.length != accountCount()) throw new IllegalArgumentException("Expected " + accountCount() + " account ids");
+        Partition[] parts = partitions();
+        long[] applied = new long[parts.length];
+        run(() -> IntStream.range(0, parts.length).parallel().forEach(p -> applied[p] = apply(bank, accountIds, parts[p])));
+        long total = 0;
+        for (long a : applied) total += a;
+        return total;
+    }
+
+    private long apply(Bank bank, String[] ids, Partition part) {
+        Event e = new Event();
+        List<Operation> batch = batchSize > 1 ? new ArrayList<>(batchSize) : null;
+        long applied = 0;
+        while (part.next(e)) {
+            String from = e.from < 0 ? null : ids[e.from];
+            String to = e.to < 0 ? null : ids[e.to];
+            if (batch != null) {
+                double amount = Money.toDouble(e.amount);
+                batch.add(e.type == Transaction.Type.DEPOSIT ? Operation.deposit(to, amount, note(e.type))
+                        : e.type == Transaction.Type.WITHDRAWAL ? Operation.withdraw(from, amount, note(e.type))
+                        : Operation.transfer(from, to, amount, note(e.type)));
+                if (batch.size() == batchSize) applied += flush(bank, batch);
+                continue;
+            }
+            try {
+                switch (e.type) {
+                    case DEPOSIT: bank.depositMinor(to, e.amount, note(e.type)); break;
+                    case WITHDRAWAL: bank.withdrawMinor(from, e.amount, note(e.type)); break;
+                    default: bank.transferMinor(from, to, e.amount, note(e.type)); break;
+                }
+                applied++;
+            } catch (InsufficientFundsException ex) {
+                // skipped, as a real customer would be declined
+            } catch (Exception ex) {
+                throw new IllegalStateException("Synthetic operation failed", ex);
+            }
+        }
+        if (batch != null && !batch.isEmpty()) applied += flush(bank, batch);
+        return applied;
+    }
+
+    private static long flush(Bank bank, List<Operation> batch) {
+        long applied = bank.applyBatch(batch, BatchMode.BEST_EFFORT).getAppliedCount();
+        batch.clear();
+        return applied;
+    }
+
+    // ----- Writing a bulk-load file -----
+
+    /**
+     * Writes the whole dataset as a snapshot for {@link Bank#loadFromFile}. Ids are derived
+     * from positions (C1, A1, T1, ...), so the file is byte-for-byte reproducible. Partitions are
+     * generated {@link #parallelism} at a time and written in order; operations that would
+     * overdraw an account are dropped, and the accounts are written last with their final balances.
+     */
+    public void writeSnapshot(Path file) throws IOException {
+        int n = accountCount();
+        long[] balances = new long[n];
+        long txId = 0;
+        try (SnapshotWriter out = new SnapshotWriter(file)) {
+            for (int c = 0; c < customers; c++) {
+                out.customer(new Customer("C" + c, customerName(c), customerEmail(c), customerPhone(c)));
+            }
+            LocalDateTime opened = time(START_MILLIS);
+            for (int j = 0; j < n; j++) {
+                balances[j] = initialBalance(j);
+                if (balances[j] > 0) {
+                    out.transaction(new Transaction("T" + txId++, Transaction.Type.DEPOSIT, null, accountId(j),
+                            balances[j], opened, "Initial deposit"));
+                }
+            }
+
+            Partition[] parts = partitions();
+            for (int first = 0; first < parts.length; first += parallelism) {
+                int last = Math.min(parts.length, first + parallelism);
+                EventBuffer[] wave = new EventBuffer[last - first];
+                int base = first;
+                run(() -> IntStream.range(0, wave.length).parallel().forEach(w -> wave[w] = new EventBuffer(parts[base + w])));
+                for (EventBuffer buf : wave) {
+                    for (int i = 0; i < buf.size; i++) {
+                        int from = buf.from[i];
+                        int to = buf.to[i];
+                        long amount = buf.amount[i];
+                        if (from >= 0 && balances[from] - amount < -overdraftLimit(from)) continue;
+                        if (from >= 0) balances[from] -= amount;
+                        if (to >= 0) balances[to] += amount;
+                        Transaction.Type type = Transaction.Type.values()[buf.type[i]];
+                        out.transaction(new Transaction("T" + txId++, type, from < 0 ? null : accountId(from),
+                                to < 0 ? null : accountId(to), amount, time(buf.time[i]), note(type)));
+                    }
+                }
+            }
+
+            for (int j = 0; j < n; j++) {
+                String customerId = "C" + j / accountsPerCustomer;
+                out.account(j % accountsPerCustomer == 0
+                        ? new SavingsAccount(accountId(j), customerId, balances[j], interestRate(j), opened)
+                        : new CurrentAccount(accountId(j), customerId, balances[j], OVERDRAFT_LIMIT, opened));
+            }
+            out.commit();
+        }
+    }
+
+    // ----- Data -----
+    private static String customerName(int c) { return "Customer " + c; }
+    private static String customerEmail(int c) { return "customer" + c + "@example.com"; }
+    private static String customerPhone(int c) { return String.valueOf(9_000_000_000L + c); }
+    private static String accountId(int j) { return "A" + j; }
+
+    private static String note(Transaction.Type type) {
+        switch (type) {
+            case DEPOSIT: return "Synthetic deposit";
+            case WITHDRAWAL: return "Synthetic withdrawal";
+            default: return "Synthetic transfer";
+        }
+    }
+
+    private long initialBalance(int account) {
+        return 10_000 + new SplittableRandom(seed * 31 + account).nextLong(10_000_000);
+    }
+
+    private double interestRate(int account) {
+        return 2.5 + new SplittableRandom(~seed * 31 + account).nextInt(5) * 0.5;
+    }
+
+    private long overdraftLimit(int account) {
+        return account % accountsPerCustomer == 0 ? 0 : OVERDRAFT_LIMIT;
+    }
+
+    private static LocalDateTime time(long epochMillis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochMillis, 1000L),
+                (int) Math.floorMod(epochMillis, 1000L) * 1_000_000, ZoneOffset.UTC);
+    }
+
+    // the seed is split once per partition, in order, so partition p is the same on every run
+    private Partition[] partitions() {
+        SplittableRandom root = new SplittableRandom(seed);
+        ZipfSampler zipf = new ZipfSampler(accountCount(), zipfExponent);
+        Partition[] parts = new Partition[partitionCount()];
+        for (int p = 0; p < parts.length; p++) {
+            long size = Math.min(partitionSize, transactions - (long) p * partitionSize);
+            long start = START_MILLIS + (long) p * partitionSize * meanGapMillis;
+            parts[p] = new Partition(root.split(), zipf, size, start);
+        }
+        return parts;
+    }
+
+    private void run(Runnable task) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            Future<?> f = pool.submit(task);
+            f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) throw (UncheckedIOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IllegalStateException(cause);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // one generated operation; from/to are account positions, -1 for none
+    private static final class Event {
+        Transaction.Type type;
+        int from;
+        int to;
+        long amount;
+        long time;
+    }
+
+    /**
+     * One partition of the stream: a fixed number of operations from its own random source.
+     */
+    private final class Partition {
+        private final SplittableRandom random;
+        private final ZipfSampler zipf;
+        private final int accounts;
+        private final long stride;
+        private long remaining;
+        private long clock;
+        private int burstLeft;
+        private int burstAccount;
+        private boolean burstPays;
+
+        Partition(SplittableRandom random, ZipfSampler zipf, long size, long start) {
+            this.random = random;
+            this.zipf = zipf;
+            this.accounts = accountCount();
+            this.stride = STRIDE_PRIME % accounts;
+            this.remaining = size;
+            this.clock = start;
+        }
+
+        boolean next(Event e) {
+            if (remaining == 0) return false;
+            remaining--;
+            if (burstLeft == 0 && random.nextDouble() < burstProbability) {
+                burstLeft = burstLength;
+                burstAccount = hot();
+                burstPays = random.nextBoolean();
+            }
+            double gap = -Math.log(1 - random.nextDouble()) * meanGapMillis;
+            e.amount = Math.max(1, Math.round(Math.exp(AMOUNT_MU + AMOUNT_SIGMA * random.nextGaussian())));
+            if (burstLeft > 0) {
+                burstLeft--;
+                clock += (long) (gap / burstRateFactor);
+                e.time = clock;
+                int other = random.nextInt(accounts);
+                if (other == burstAccount) {
+                    if (accounts == 1) return deposit(e, other);
+                    other = (other + 1) % accounts;
+                }
+                e.type = Transaction.Type.TRANSFER;
+                e.from = burstPays ? burstAccount : other;
+                e.to = burstPays ? other : burstAccount;
+                return true;
+            }
+            clock += (long) gap;
+            e.time = clock;
+            int kind = random.nextInt(10);
+            if (kind < 3) return deposit(e, hot());
+            if (kind < 5) {
+                e.type = Transaction.Type.WITHDRAWAL;
+                e.from = hot();
+                e.to = -1;
+                return true;
+            }
+            int from = hot();
+            int to = hot();
+            if (from == to) to = random.nextInt(accounts);
+            if (from == to) return deposit(e, to);
+            e.type = Transaction.Type.TRANSFER;
+            e.from = from;
+            e.to = to;
+            return true;
+        }
+
+        private boolean deposit(Event e, int account) {
+            e.type = Transaction.Type.DEPOSIT;
+            e.from = -1;
+            e.to = account;
+            return true;
+        }
+
+        // Zipf rank spread over the accounts, so the hottest ones are not all the oldest
+        private int hot() {
+            long rank = zipf.sample(random) - 1;
+            return (int) (rank * stride % accounts);
+        }
+    }
+
+    /**
+     * A partition materialized into columns, so it can be generated on a worker thread and
+     * written out in order later.
+     */
+    private static final class EventBuffer {
+        final byte[] type;
+        final int[] from;
+        final int[] to;
+        final long[] amount;
+        final long[] time;
+        int size;
+
+        EventBuffer(Partition part) {
+            int n = (int) part.remaining;
+            type = new byte[n];
+            from = new int[n];
+            to = new int[n];
+            amount = new long[n];
+            time = new long[n];
+            Event e = new Event();
+            while (part.next(e)) {
+                type[size] = (byte) e.type.ordinal();
+                from[size] = e.from;
+                to[size] = e.to;
+                amount[size] = e.amount;
+                time[size] = e.time;
+                size++;
+            }
+        }
+    }
+
+    /**
+     * Zipf sampler over ranks 1..n by rejection-inversion (Hormann and Derflinger), so no
+     * per-rank table is needed even for tens of millions of accounts.
+     */
+    private static final class ZipfSampler {
+        private final long n;
+        private final double exponent;
+        private final double hIntegralX1;
+        private final double hIntegralN;
+        private final double s;
+
+        ZipfSampler(long n, double exponent) {
+            this.n = n;
+            this.exponent = exponent;
+            hIntegralX1 = hIntegral(1.5) - 1;
+            hIntegralN = hIntegral(n + 0.5);
+            s = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+        }
+
+        long sample(SplittableRandom random) {
+            while (true) {
+                double u = hIntegralN + random.nextDouble() * (hIntegralX1 - hIntegralN);
+                double x = hIntegralInverse(u);
+                long k = (long) (x + 0.5);
+                if (k < 1) k = 1;
+                else if (k > n) k = n;
+                if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) return k;
+            }
+        }
+
+        private double h(double x) {
+            return Math.exp(-exponent * Math.log(x));
+        }
+
+        private double hIntegral(double x) {
+            double logX = Math.log(x);
+            return helper2((1 - exponent) * logX) * logX;
+        }
+
+        private double hIntegralInverse(double x) {
+            double t = x * (1 - exponent);
+            if (t < -1) t = -1;
+            return Math.exp(helper1(t) * x);
+        }
+
+        // log(1 + x) / x, stable near 0
+        private static double helper1(double x) {
+            return Math.abs(x) > 1e-8 ? Math.log1p(x) / x : 1 - x * (0.5 - x * (1.0 / 3 - 0.25 * x));
+        }
+
+        // (exp(x) - 1) / x, stable near 0
+        private static double helper2(double x) {
+            return Math.abs(x) > 1e-8 ? Math.expm1(x) / x : 1 + x * 0.5 * (1 + x * (1.0 / 3) * (1 + 0.25 * x));
+        }
+    }
+}
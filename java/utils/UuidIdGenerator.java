@@ -0,0 +1,13 @@
+package utils;
+
+import java.util.UUID;
+
+/**
+ * Random UUID ids, as every entity used before ids became pluggable.
+ */
+public class UuidIdGenerator implements IdGenerator {
+    @Override
+    public String nextId() {
+        return UUID.randomUUID().toString();
+    }
+}
@@ -2,9 +2,14 @@
 CREATE DATABASE bank_management;
 USE bank_management;
 
+-- Ids are assigned by the application (see utils.Ids), so they are strings rather than
+-- AUTO_INCREMENT keys, up to 36 characters so UUID ids (utils.UuidIdGenerator) still fit.
+-- Money columns are DECIMAL(19,2) so any amount the application holds (a long count of
+-- cents, see models.Money) fits. services.JdbcRepository creates these tables when they are missing.
+
 -- Table: Customers
 CREATE TABLE customers (
-    customer_id INT AUTO_INCREMENT PRIMARY KEY,
+    customer_id VARCHAR(36) PRIMARY KEY,
     name VARCHAR(100) NOT NULL,
     email VARCHAR(100) UNIQUE NOT NULL,
     phone VARCHAR(15)
@@ -12,36 +17,44 @@ CREATE TABLE customers (
 
 -- Table: Accounts
 CREATE TABLE accounts (
-    account_id INT AUTO_INCREMENT PRIMARY KEY,
-    customer_id INT NOT NULL,
+    account_id VARCHAR(36) PRIMARY KEY,
+    customer_id VARCHAR(36) NOT NULL,
     account_type ENUM('Savings', 'Current') NOT NULL,
-    balance DECIMAL(12,2) DEFAULT 0,
+    balance DECIMAL(19,2) DEFAULT 0,
     interest_rate DECIMAL(5,2) DEFAULT 0, -- only used for savings
-    overdraft_limit DECIMAL(12,2) DEFAULT 0, -- only used for current
+    overdraft_limit DECIMAL(19,2) DEFAULT 0, -- only used for current
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    active BOOLEAN DEFAULT TRUE NOT NULL, -- closed accounts are kept for their history
     FOREIGN KEY (customer_id) REFERENCES customers(customer_id)
 );
 
+CREATE INDEX idx_accounts_customer ON accounts(customer_id);
+
 -- Table: Transactions
+-- seq is the position in the ledger. account_id is the source account, or the destination
+-- for deposits and interest; to_account_id is the destination of a transfer.
 CREATE TABLE transactions (
-    transaction_id INT AUTO_INCREMENT PRIMARY KEY,
-    account_id INT NOT NULL,
-    type ENUM('Deposit', 'Withdrawal', 'Transfer') NOT NULL,
-    amount DECIMAL(12,2) NOT NULL,
+    seq BIGINT PRIMARY KEY,
+    transaction_id VARCHAR(36) UNIQUE NOT NULL,
+    account_id VARCHAR(36) NOT NULL,
+    to_account_id VARCHAR(36),
+    type ENUM('Deposit', 'Withdrawal', 'Transfer', 'Interest') NOT NULL,
+    amount DECIMAL(19,2) NOT NULL,
     note VARCHAR(255),
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    FOREIGN KEY (account_id) REFERENCES accounts(account_id)
+    FOREIGN KEY (account_id) REFERENCES accounts(account_id),
+    FOREIGN KEY (to_account_id) REFERENCES accounts(account_id)
 );
 
 -- ✅ Sample Data
-INSERT INTO customers (name, email, phone)
-VALUES ('Aisha Khan', 'aisha@example.com', '9990011111'),
-       ('Rahul Verma', 'rahul@example.com', '8880022222');
+INSERT INTO customers (customer_id, name, email, phone)
+VALUES ('C1', 'Aisha Khan', 'aisha@example.com', '9990011111'),
+       ('C2', 'Rahul Verma', 'rahul@example.com', '8880022222');
 
-INSERT INTO accounts (customer_id, account_type, balance, interest_rate)
-VALUES (1, 'Savings', 5000, 3.5),
-       (2, 'Current', 10000, 0);
+INSERT INTO accounts (account_id, customer_id, account_type, balance, interest_rate)
+VALUES ('A1', 'C1', 'Savings', 5000, 3.5),
+       ('A2', 'C2', 'Current', 10000, 0);
 
-INSERT INTO transactions (account_id, type, amount, note)
-VALUES (1, 'Deposit', 5000, 'Initial Deposit'),
-       (2, 'Deposit', 10000, 'Initial Deposit');
+INSERT INTO transactions (seq, transaction_id, account_id, type, amount, note)
+VALUES (0, 'T1', 'A1', 'Deposit', 5000, 'Initial Deposit'),
+       (1, 'T2', 'A2', 'Deposit', 10000, 'Initial Deposit');